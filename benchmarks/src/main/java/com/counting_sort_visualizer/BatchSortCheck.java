@@ -0,0 +1,113 @@
+package com.counting_sort_visualizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Verifica end-to-end di {@link BatchSortCli} con uno heap piccolo: per ogni insieme di dati e per i formati binario e
+ * testuale avvia la modalità batch in un processo separato con {@value #HEAP} e confronta il file ordinato con
+ * {@link Arrays#sort}.
+ *
+ * Gli insiemi coprono pochi valori molto distanti, che non devono allocare un conteggio diretto sull'intero intervallo,
+ * intervalli più ampi del conteggio diretto di {@link WideRangeHistogram}, che richiedono la seconda passata, e un
+ * input più grande dello heap del processo.
+ *
+ * Utilizzo: {@code java -cp target/benchmarks.jar com.counting_sort_visualizer.BatchSortCheck}. Il processo termina
+ * con codice 1 se almeno un confronto fallisce.
+ */
+public final class BatchSortCheck {
+
+    private static final String HEAP = "-Xmx32m";
+
+    private BatchSortCheck() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Random random = new Random(42);
+        Map<String, int[]> cases = new LinkedHashMap<>();
+        cases.put("valori distanti", new int[]{5, 0, 60_000_000, 7});
+        cases.put("estremi di int", new int[]{Integer.MAX_VALUE, 1, Integer.MIN_VALUE, 1});
+        cases.put("intervallo stretto", random.ints(1_000_000, -1000, 1000).toArray());
+        cases.put("intervallo medio", random.ints(1_000_000, 0, 3_000_000).toArray());
+        cases.put("interi casuali", random.ints(1_000_000).toArray());
+        // 48 MiB di dati binari: più dello heap del processo.
+        cases.put("più grande dello heap", random.ints(12_000_000, 0, 100_000_000).toArray());
+
+        Path directory = Files.createTempDirectory("batch-sort-check");
+        Path input = directory.resolve("input");
+        Path output = directory.resolve("output");
+        int failures = 0;
+        try {
+            for (Map.Entry<String, int[]> entry : cases.entrySet()) {
+                int[] expected = entry.getValue().clone();
+                Arrays.sort(expected);
+                for (BatchSortCli.Format format : BatchSortCli.Format.values()) {
+                    if (format == BatchSortCli.Format.TEXT && expected.length > 1_000_000) continue;
+                    write(input, entry.getValue(), format);
+                    long start = System.nanoTime();
+                    int status = run(input, output, format);
+                    boolean ok = status == 0 && Arrays.equals(expected, read(output, format));
+                    if (!ok) failures++;
+                    System.out.printf("%-22s %-7s %-6s %d ms%n", entry.getKey(), format, ok ? "OK" : "ERRORE",
+                            (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(directory);
+        }
+        System.out.println(failures == 0 ? "Tutte le verifiche superate" : "Verifiche fallite: " + failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /**
+     * Ordina il file in un processo separato con heap ridotto e ne restituisce il codice di uscita.
+     */
+    private static int run(Path input, Path output, BatchSortCli.Format format) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(), HEAP,
+                "-cp", System.getProperty("java.class.path"), BatchSortCli.class.getName(),
+                "--input", input.toString(), "--output", output.toString(),
+                "--format", format.name().toLowerCase()));
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.inheritIO();
+        return builder.start().waitFor();
+    }
+
+    private static void write(Path file, int[] values, BatchSortCli.Format format) throws IOException {
+        if (format == BatchSortCli.Format.TEXT) {
+            StringBuilder text = new StringBuilder();
+            for (int v : values) {
+                text.append(v).append('\n');
+            }
+            Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.BIG_ENDIAN);
+        buffer.asIntBuffer().put(values);
+        Files.write(file, buffer.array());
+    }
+
+    private static int[] read(Path file, BatchSortCli.Format format) throws IOException {
+        if (format == BatchSortCli.Format.TEXT) {
+            return Files.readAllLines(file, StandardCharsets.US_ASCII).stream()
+                    .filter(line -> !line.isEmpty()).mapToInt(Integer::parseInt).toArray();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.BIG_ENDIAN);
+        int[] values = new int[buffer.remaining() / 4];
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,65 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generazione degli input dei benchmark: ogni distribuzione è riproducibile grazie a un seme fisso, così che due
+ * esecuzioni (o due varianti dell'algoritmo) misurino sempre gli stessi dati.
+ */
+public final class BenchmarkData {
+
+    // Seme fisso: gli input devono essere identici tra una esecuzione e l'altra.
+    static final long SEED = 0x5EEDL;
+
+    /**
+     * Forme dei dati misurate dai benchmark.
+     */
+    public enum Distribution {
+        /** Valori uniformi nell'intervallo {@code [0, span)}. */
+        UNIFORM,
+        /** Valori fortemente sbilanciati verso le chiavi piccole (approssimazione continua di una Zipf con esponente 1). */
+        ZIPF,
+        /** Tutti gli elementi uguali. */
+        ALL_EQUAL,
+        /** Valori uniformi già ordinati in modo crescente. */
+        SORTED
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Genera {@code size} valori nell'intervallo {@code [0, span)} secondo la distribuzione indicata.
+     */
+    static int[] generate(int size, int span, Distribution distribution) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] data = new int[size];
+        switch (distribution) {
+            case UNIFORM:
+                for (int i = 0; i < size; i++) {
+                    data[i] = random.nextInt(span);
+                }
+                break;
+            case ZIPF:
+                // Inversione della distribuzione continua p(x) ~ 1/x su [1, span + 1): la chiave 0 è la più frequente.
+                double logSpan = Math.log(span + 1.0);
+                for (int i = 0; i < size; i++) {
+                    data[i] = Math.min(span - 1, (int) (Math.exp(random.nextDouble() * logSpan) - 1.0));
+                }
+                break;
+            case ALL_EQUAL:
+                Arrays.fill(data, span / 2);
+                break;
+            case SORTED:
+                for (int i = 0; i < size; i++) {
+                    data[i] = random.nextInt(span);
+                }
+                Arrays.sort(data);
+                break;
+            default:
+                throw new IllegalArgumentException("Distribuzione non gestita: " + distribution);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,88 @@
+package com.counting_sort_visualizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Esegue {@link SortBenchmark} su una scala di dimensioni più fitta e riporta i punti di incrocio: per ogni coppia
+ * (ampiezza, distribuzione) la più piccola dimensione a partire dalla quale il Counting Sort supera l'ordinamento della
+ * libreria standard, sia nella versione sequenziale sia in quella parallela.
+ *
+ * Utilizzo: {@code java -cp target/benchmarks.jar com.counting_sort_visualizer.CrossoverReport}.
+ * Il profiler GC resta attivo, così che l'output di JMH riporti anche il tasso di allocazione di ogni combinazione.
+ */
+public final class CrossoverReport {
+
+    // Dimensioni misurate: progressione geometrica di ragione ~3,16 (mezza decade) da 1K a 10M.
+    private static final String[] SIZES = {
+        "1000", "3162", "10000", "31623", "100000", "316228", "1000000", "3162278", "10000000"
+    };
+
+    private CrossoverReport() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SortBenchmark.class.getSimpleName())
+                .param("size", SIZES)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(1))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        // Punteggi raggruppati per (ampiezza, distribuzione) -> algoritmo -> dimensione -> operazioni al secondo.
+        Map<String, Map<String, Map<Integer, Double>>> scores = new TreeMap<>();
+        for (RunResult result : results) {
+            String key = "span=" + result.getParams().getParam("span")
+                    + " distribution=" + result.getParams().getParam("distribution");
+            String algorithm = result.getParams().getParam("algorithm");
+            int size = Integer.parseInt(result.getParams().getParam("size"));
+            scores.computeIfAbsent(key, k -> new TreeMap<>())
+                  .computeIfAbsent(algorithm, k -> new TreeMap<>())
+                  .put(size, result.getPrimaryResult().getScore());
+        }
+
+        System.out.println();
+        System.out.println("Punti di incrocio (dimensione minima da cui il Counting Sort è più veloce):");
+        for (Map.Entry<String, Map<String, Map<Integer, Double>>> entry : scores.entrySet()) {
+            Map<String, Map<Integer, Double>> byAlgorithm = entry.getValue();
+            System.out.printf("  %-40s sequenziale: %-12s parallelo: %s%n", entry.getKey(),
+                    crossover(byAlgorithm.get("COUNTING"), byAlgorithm.get("ARRAYS_SORT")),
+                    crossover(byAlgorithm.get("PARALLEL_COUNTING"), byAlgorithm.get("ARRAYS_PARALLEL_SORT")));
+        }
+    }
+
+    /**
+     * Restituisce la più piccola dimensione da cui {@code candidate} resta stabilmente più veloce di {@code baseline},
+     * oppure "mai" se ciò non accade nell'intervallo misurato.
+     */
+    private static String crossover(Map<Integer, Double> candidate, Map<Integer, Double> baseline) {
+        if (candidate == null || baseline == null) return "n/d";
+        List<Integer> sizes = new ArrayList<>(candidate.keySet());
+        Integer first = null;
+        for (Integer size : sizes) {
+            Double base = baseline.get(size);
+            boolean faster = base != null && candidate.get(size) > base;
+            if (faster && first == null) {
+                first = size;
+            } else if (!faster) {
+                first = null;         // Il vantaggio deve mantenersi anche sulle dimensioni successive.
+            }
+        }
+        return first == null ? "mai" : String.valueOf(first);
+    }
+}
@@ -0,0 +1,89 @@
+package com.counting_sort_visualizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Verifica end-to-end di {@link DistributedCountingSort#sortFile(Path, Path, ByteOrder, int)}: per ogni insieme di dati
+ * e per 1, 2 e 3 processi di lavoro locali, al posto dei nodi, confronta il file ordinato con {@link Arrays#sort}.
+ *
+ * Gli insiemi coprono i casi limite della suddivisione in porzioni (file vuoto, un solo valore, pochi valori distinti
+ * molto frequenti), intervalli stretti, per cui il coordinatore ripete il conteggio con bucket più fini, e intervalli
+ * più ampi del conteggio diretto di {@link WideRangeHistogram}, che i processi completano con la seconda passata.
+ *
+ * Utilizzo: {@code java -cp target/benchmarks.jar com.counting_sort_visualizer.DistributedSortCheck}. Il processo termina
+ * con codice 1 se almeno un confronto fallisce.
+ */
+public final class DistributedSortCheck {
+
+    private static final int[] WORKERS = {1, 2, 3};
+
+    private DistributedSortCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(42);
+        Map<String, int[]> cases = new LinkedHashMap<>();
+        cases.put("vuoto", new int[0]);
+        cases.put("un valore", new int[]{7});
+        cases.put("intervallo ampio", new int[]{5, -3, 1 << 30, 7, 5, 0, -2_000_000_000, 12});
+        cases.put("valori distanti", new int[]{5, 0, 60_000_000, 7});
+        cases.put("valori ripetuti", random.ints(100_000, 0, 3).toArray());
+        cases.put("intervallo stretto", random.ints(500_000, -1000, 1000).toArray());
+        cases.put("interi casuali", random.ints(500_000).toArray());
+        int[] mixed = new int[500_000];
+        for (int i = 0; i < mixed.length; i++) {
+            // Pochi valori frequenti più una coda sparsa su tutto l'intervallo di int.
+            mixed[i] = i % 4 == 0 ? random.nextInt() : random.nextInt(16);
+        }
+        cases.put("misto", mixed);
+
+        Path directory = Files.createTempDirectory("distributed-sort-check");
+        Path input = directory.resolve("input.bin");
+        Path output = directory.resolve("output.bin");
+        int failures = 0;
+        try {
+            for (Map.Entry<String, int[]> entry : cases.entrySet()) {
+                int[] expected = entry.getValue().clone();
+                Arrays.sort(expected);
+                for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                    write(input, entry.getValue(), order);
+                    for (int workers : WORKERS) {
+                        long start = System.nanoTime();
+                        long sorted = DistributedCountingSort.sortFile(input, output, order, workers);
+                        boolean ok = sorted == expected.length && Arrays.equals(expected, read(output, order));
+                        if (!ok) failures++;
+                        System.out.printf("%-20s %-13s processi=%d %-6s %d ms%n", entry.getKey(), order, workers,
+                                ok ? "OK" : "ERRORE", (System.nanoTime() - start) / 1_000_000);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(directory);
+        }
+        System.out.println(failures == 0 ? "Tutte le verifiche superate" : "Verifiche fallite: " + failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    private static void write(Path file, int[] values, ByteOrder order) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(order);
+        buffer.asIntBuffer().put(values);
+        Files.write(file, buffer.array());
+    }
+
+    private static int[] read(Path file, ByteOrder order) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(order);
+        int[] values = new int[buffer.remaining() / 4];
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,70 @@
+package com.counting_sort_visualizer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Misura la sola fase di ricostruzione del Counting Sort: il ciclo originale "un elemento alla volta" (scrittura,
+ * decremento del contatore e salto condizionato per elemento) contro il riempimento in blocco di
+ * {@link SortingLogic#fillRuns(int[], int, int, int[], int)}.
+ *
+ * L'istogramma viene preparato una sola volta; la variante originale consuma i contatori, per cui lavora su una copia
+ * che fa parte della misura ma costa soltanto O(distinct).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FillBenchmark {
+
+    @Param({"100000", "10000000"})
+    public int size;
+
+    @Param({"20", "1000", "65536"})
+    public int distinct;
+
+    private int[] count;
+    private int[] dest;
+
+    @Setup
+    public void setUp() {
+        int[] data = BenchmarkData.generate(size, distinct, BenchmarkData.Distribution.UNIFORM);
+        count = new int[distinct];
+        for (int v : data) {
+            count[v]++;
+        }
+        dest = new int[size];
+    }
+
+    @Benchmark
+    public int[] decrementLoop() {
+        int[] c = count.clone();
+        int index = 0;
+        for (int i = 0; i < c.length; i++) {
+            while (c[i] > 0) {
+                dest[index++] = i;
+                c[i]--;
+            }
+        }
+        return dest;
+    }
+
+    @Benchmark
+    public int[] bulkFill() {
+        SortingLogic.fillRuns(count, count.length, 0, dest, 0);
+        return dest;
+    }
+}
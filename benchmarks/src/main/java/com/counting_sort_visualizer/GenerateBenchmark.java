@@ -0,0 +1,56 @@
+package com.counting_sort_visualizer;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Misura il costo di {@link SortingLogic#generateRandomNumbers(int, int)} al variare della dimensione, confrontandolo
+ * con la generazione a blocchi paralleli di {@link DataGenerator} e con il vecchio ciclo su {@link Random}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class GenerateBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"20", "65536"})
+    public int maxValue;
+
+    @Benchmark
+    public int[] generateRandomNumbers() {
+        return SortingLogic.generateRandomNumbers(size, maxValue);
+    }
+
+    @Benchmark
+    public int[] dataGeneratorParallel() {
+        return new DataGenerator(BenchmarkData.SEED, DataGenerator.Distribution.UNIFORM, maxValue)
+                .generate(size, ForkJoinPool.commonPool(), null);
+    }
+
+    @Benchmark
+    public int[] legacyRandom() {
+        int[] arr = new int[size];
+        Random random = new Random();
+        for (int i = 0; i < size; i++) {
+            arr[i] = random.nextInt(maxValue + 1);
+        }
+        return arr;
+    }
+}
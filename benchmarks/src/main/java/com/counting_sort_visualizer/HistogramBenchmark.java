@@ -0,0 +1,85 @@
+package com.counting_sort_visualizer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Misura la sola fase di conteggio con le diverse rappresentazioni di {@link HistogramBackend}: contatori da 1, 2 e 4
+ * byte su intervalli che entrano o meno nelle cache L1/L2, e la mappa sparsa su pochi valori distinti sparsi
+ * sull'intero intervallo degli int.
+ *
+ * Ogni invocazione crea un istogramma nuovo (come fa {@link SortingLogic#countingSort(int[])}), per cui la misura
+ * include anche l'allocazione e l'azzeramento dei contatori.
+ * Il risultato è restituito come {@code Object} perché il codice generato da JMH risiede in un altro package.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistogramBenchmark {
+
+    public enum Backend {
+        BYTE, SHORT, INT, SPARSE
+    }
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"65536", "1048576", "4000000"})
+    public int span;
+
+    @Param
+    public Backend backend;
+
+    private int[] data;
+
+    @Setup
+    public void setUp() {
+        if (backend == Backend.SPARSE) {
+            // Lo stesso numero di valori distinti, moltiplicati per una costante che li sparge sugli int.
+            data = BenchmarkData.generate(size, Math.min(span, 4096), BenchmarkData.Distribution.UNIFORM);
+            for (int i = 0; i < data.length; i++) {
+                data[i] *= 0x9E3779B1;
+            }
+        } else {
+            data = BenchmarkData.generate(size, span, BenchmarkData.Distribution.UNIFORM);
+        }
+    }
+
+    @Benchmark
+    public Object count() {
+        HistogramBackend histogram;
+        switch (backend) {
+            case BYTE:
+                histogram = new HistogramBackend.ByteCounts(0, span);
+                break;
+            case SHORT:
+                histogram = new HistogramBackend.ShortCounts(0, span);
+                break;
+            case INT:
+                histogram = new HistogramBackend.IntCounts(0, span);
+                break;
+            default:
+                histogram = new HistogramBackend.SparseCounts(4096, size);
+                break;
+        }
+        int counted = 0;
+        while ((counted = histogram.count(data, counted, data.length)) < data.length) {
+            histogram = histogram.promote();
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,67 @@
+package com.counting_sort_visualizer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Misura il punto di pareggio tra il Counting Sort sequenziale e {@link ParallelCountingSort}, da cui deriva
+ * {@link ParallelCountingSort#SEQUENTIAL_THRESHOLD}.
+ *
+ * Il percorso parallelo viene forzato a ogni dimensione (soglia nulla), su un pool dedicato con {@code threads} thread:
+ * sotto la soglia il confronto mostra quanto costano task, istogrammi privati e fusione rispetto al lavoro risparmiato.
+ * Su una macchina con meno core dei thread del pool il confronto misura soltanto questo costo aggiuntivo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelThresholdBenchmark {
+
+    @Param({"16384", "32768", "65536", "131072", "262144", "1048576"})
+    public int size;
+
+    @Param({"1024"})
+    public int span;
+
+    @Param({"2", "4", "8"})
+    public int threads;
+
+    private int[] data;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.generate(size, span, BenchmarkData.Distribution.UNIFORM);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] sequential() {
+        return SortingLogic.countingSort(data);
+    }
+
+    @Benchmark
+    public int[] parallel() {
+        return ParallelCountingSort.sort(data, pool, 0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Confronta i nuclei di {@link ScanKernels} con le alternative: la ricerca fusa di minimo e massimo contro le due
+ * riduzioni con gli stream, e il conteggio con uno o quattro istogrammi, su dati uniformi, sbilanciati e con un solo
+ * valore ripetuto, dove la catena di incrementi sullo stesso contatore è più lunga. {@code adaptiveCount} applica la
+ * scelta di {@link ScanKernels#interleave(int[], int, int, int)}, come fa {@link SortingLogic#countingSort(int[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"16", "1024"})
+    public int span;
+
+    @Param({"UNIFORM", "ZIPF", "ALL_EQUAL"})
+    public BenchmarkData.Distribution distribution;
+
+    private int[] data;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.generate(size, span, distribution);
+        counts = new int[span];
+    }
+
+    @Benchmark
+    public int streamMinMax() {
+        return Arrays.stream(data).min().getAsInt() ^ Arrays.stream(data).max().getAsInt();
+    }
+
+    @Benchmark
+    public long fusedMinMax() {
+        return ScanKernels.minMax(data, 0, data.length);
+    }
+
+    @Benchmark
+    public int[] scalarCount() {
+        int[] c = counts;
+        Arrays.fill(c, 0);
+        for (int v : data) {
+            c[v]++;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] interleavedCount() {
+        Arrays.fill(counts, 0);
+        ScanKernels.countInterleaved(data, 0, data.length, 0, counts);
+        return counts;
+    }
+
+    @Benchmark
+    public int[] adaptiveCount() {
+        Arrays.fill(counts, 0);
+        if (ScanKernels.interleave(data, 0, data.length, counts.length)) {
+            ScanKernels.countInterleaved(data, 0, data.length, 0, counts);
+        } else {
+            for (int v : data) {
+                counts[v]++;
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,108 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Confronto tra le varianti del Counting Sort di {@link SortingLogic}, il selettore adattivo
+ * {@link SortingLogic#sort(int[])} e gli ordinamenti della libreria standard, al variare della dimensione dell'input,
+ * dell'ampiezza dell'intervallo delle chiavi e della distribuzione dei dati.
+ *
+ * Ogni operazione produce un nuovo array ordinato lasciando intatto l'input: per {@link Arrays#sort(int[])} e
+ * {@link Arrays#parallelSort(int[])} la copia dell'input fa quindi parte della misura, così come l'array di uscita fa
+ * parte della misura del Counting Sort. Eseguendo con {@code -prof gc} si ottiene anche il tasso di allocazione.
+ *
+ * Le combinazioni con 100M elementi richiedono circa 1,5 GiB di heap, già previsti dagli argomenti della JVM del fork.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class SortBenchmark {
+
+    /**
+     * Algoritmi confrontati dal benchmark.
+     */
+    public enum Algorithm {
+        COUNTING {
+            @Override
+            int[] sort(int[] data) {
+                return SortingLogic.countingSort(data);
+            }
+        },
+        PARALLEL_COUNTING {
+            @Override
+            int[] sort(int[] data) {
+                return SortingLogic.parallelCountingSort(data);
+            }
+        },
+        ADAPTIVE {
+            @Override
+            int[] sort(int[] data) {
+                return SortingLogic.sort(data);
+            }
+        },
+        RADIX {
+            @Override
+            int[] sort(int[] data) {
+                return RadixSort.sort(data);
+            }
+        },
+        ARRAYS_SORT {
+            @Override
+            int[] sort(int[] data) {
+                int[] copy = data.clone();
+                Arrays.sort(copy);
+                return copy;
+            }
+        },
+        ARRAYS_PARALLEL_SORT {
+            @Override
+            int[] sort(int[] data) {
+                int[] copy = data.clone();
+                Arrays.parallelSort(copy);
+                return copy;
+            }
+        };
+
+        abstract int[] sort(int[] data);
+    }
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    public int size;
+
+    @Param({"16", "65536", "16777216"})
+    public int span;
+
+    @Param({"UNIFORM", "ZIPF", "ALL_EQUAL", "SORTED"})
+    public BenchmarkData.Distribution distribution;
+
+    @Param({"COUNTING", "PARALLEL_COUNTING", "ADAPTIVE", "RADIX", "ARRAYS_SORT", "ARRAYS_PARALLEL_SORT"})
+    public Algorithm algorithm;
+
+    private int[] data;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.generate(size, span, distribution);
+    }
+
+    @Benchmark
+    public int[] sort() {
+        return algorithm.sort(data);
+    }
+}
@@ -0,0 +1,454 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Selettore dell'algoritmo di ordinamento in base a un profilo dell'input calcolato a campione.
+ *
+ * Il profilo ({@link Profile}) esamina {@value #PROFILE_SAMPLE} elementi distribuiti uniformemente sull'array e ne
+ * ricava, senza leggere l'intero input:
+ * - l'ampiezza dell'intervallo dei valori del campione, che approssima per difetto quella reale;
+ * - una stima del numero di valori distinti, con lo stimatore GEE ({@code sqrt(n / s) * f1 + (d - f1)}, dove
+ *   {@code d} sono i distinti del campione e {@code f1} quelli comparsi una sola volta);
+ * - se il campione è già in ordine crescente o decrescente, anche fra elementi adiacenti.
+ *
+ * Un modello dei costi ({@link CostModel}) stima poi il tempo di ciascun motore a partire da coefficienti in
+ * nanosecondi per elemento, per contatore o per passata, e viene scelto il motore più economico:
+ * - {@link Engine#PRESORTED}: l'input è già ordinato (verificato con una lettura completa) e viene soltanto copiato, o
+ *   invertito se decrescente;
+ * - {@link Engine#COUNTING}: {@link SortingLogic#countingSort(int[])}, lineare in {@code n + span}, oppure nella mappa
+ *   sparsa se i valori distinti sono pochi su un intervallo ampio;
+ * - {@link Engine#PARALLEL_COUNTING}: {@link ParallelCountingSort}, quando il pool ha più thread e gli istogrammi
+ *   privati restano piccoli rispetto all'input;
+ * - {@link Engine#RADIX}: {@link RadixSort}, con una passata per ogni cifra di 8 bit dell'ampiezza;
+ * - {@link Engine#COMPARISON}: {@link Arrays#sort(int[])}, conveniente sugli array piccoli.
+ *
+ * Un profilo errato (per esempio un campione che non coglie un valore isolato molto lontano) costa soltanto tempo:
+ * ogni motore ordina correttamente qualunque input, e il Counting Sort ricorre da sé al radix se l'intervallo reale è
+ * troppo ampio.
+ *
+ * I coefficienti predefiniti sono stati misurati su una macchina di riferimento. {@link #calibrate()} li rimisura
+ * sulla macchina corrente con brevi prove su input sintetici. La calibrazione avviene soltanto su richiesta esplicita,
+ * tipicamente all'avvio dell'applicazione e prima degli ordinamenti: prove eseguite in concorrenza con altri
+ * ordinamenti misurerebbero anche la contesa per i core e la cache, e produrrebbero un modello distorto.
+ *
+ * La classe è un dettaglio implementativo: il punto di accesso pubblico è {@link SortingLogic#sort(int[])}.
+ */
+final class AdaptiveSort {
+
+    /** Numero di elementi esaminati dal profilo. */
+    static final int PROFILE_SAMPLE = 1024;
+    // Numero di elementi degli input sintetici della calibrazione.
+    static final int CALIBRATION_SIZE = 1 << 16;
+    // Ripetizioni di riscaldamento e di misura di ogni prova della calibrazione (si tiene il tempo minimo).
+    private static final int CALIBRATION_WARMUP = 8;
+    private static final int CALIBRATION_RUNS = 5;
+    // Fattore massimo di scostamento di un coefficiente calibrato da quello predefinito: un'unica misura disturbata
+    // (per esempio da una pausa del garbage collector) non deve spostare il modello di ordini di grandezza.
+    private static final double CALIBRATION_CLAMP = 8.0;
+
+    // Contatori degli istogrammi delle cifre del Radix Sort su int.
+    private static final int RADIX_BUCKETS = 4 << RadixSort.INT_DIGIT_BITS;
+
+    /**
+     * Motori tra cui sceglie il selettore.
+     */
+    enum Engine {
+        PRESORTED, COUNTING, PARALLEL_COUNTING, RADIX, COMPARISON
+    }
+
+    // Modello in uso, sostituito atomicamente al termine di una calibrazione.
+    private static volatile CostModel model = CostModel.DEFAULTS;
+
+    private AdaptiveSort() {
+    }
+
+    /**
+     * Ordina l'array con il motore scelto dal profilo.
+     *
+     * @param arr  l'array da ordinare (non viene modificato).
+     * @param pool il pool su cui eseguire il Counting Sort parallelo, se scelto.
+     * @return un nuovo array contenente gli elementi ordinati in modo crescente.
+     */
+    static int[] sort(int[] arr, ForkJoinPool pool) {
+        if (arr.length == 0) return arr;
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        Profile profile = Profile.of(arr);
+        Engine engine = model.choose(profile, pool.getParallelism());
+        if (engine == Engine.PRESORTED) {
+            int[] sorted = presorted(arr, profile);
+            if (sorted != null) {
+                long end = System.nanoTime();
+                SortMetrics.global().recordSort(SortMetrics.Strategy.PRESORTED, arr.length, profile.span, start, end,
+                        end, end, allocBefore);
+                return sorted;
+            }
+            // Il campione era ordinato ma l'input no: si sceglie tra i motori rimanenti.
+            engine = model.chooseUnsorted(profile, pool.getParallelism());
+        }
+        switch (engine) {
+            case PARALLEL_COUNTING:
+                return ParallelCountingSort.sort(arr, pool);
+            case RADIX: {
+                long scanEnd = System.nanoTime();
+                int[] sorted = RadixSort.sort(arr);
+                long end = System.nanoTime();
+                SortMetrics.global().recordSort(SortMetrics.Strategy.RADIX, arr.length, profile.span, start, scanEnd,
+                        end, end, allocBefore);
+                return sorted;
+            }
+            case COMPARISON: {
+                long scanEnd = System.nanoTime();
+                int[] sorted = arr.clone();
+                Arrays.sort(sorted);
+                long end = System.nanoTime();
+                SortMetrics.global().recordSort(SortMetrics.Strategy.COMPARISON, arr.length, profile.span, start,
+                        scanEnd, end, end, allocBefore);
+                return sorted;
+            }
+            default:
+                return SortingLogic.countingSort(arr);
+        }
+    }
+
+    /**
+     * @return il motore che {@link #sort(int[], ForkJoinPool)} sceglierebbe per l'array, prima della verifica completa
+     *         dell'ordinamento.
+     */
+    static Engine choose(int[] arr, int parallelism) {
+        return model.choose(Profile.of(arr), parallelism);
+    }
+
+    /**
+     * Verifica con una lettura completa che l'input sia davvero ordinato come indica il campione.
+     *
+     * @return una copia ordinata dell'input, oppure {@code null} se l'input non è ordinato.
+     */
+    private static int[] presorted(int[] arr, Profile profile) {
+        int n = arr.length;
+        if (profile.ascending) {
+            for (int i = 1; i < n; i++) {
+                if (arr[i - 1] > arr[i]) return null;
+            }
+            return arr.clone();
+        }
+        for (int i = 1; i < n; i++) {
+            if (arr[i - 1] < arr[i]) return null;
+        }
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = arr[n - 1 - i];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return il modello dei costi in uso.
+     */
+    static CostModel model() {
+        return model;
+    }
+
+    /**
+     * Rimisura i coefficienti del modello sulla macchina corrente e li mette in uso. Le prove ordinano input sintetici
+     * di {@value #CALIBRATION_SIZE} elementi con ciascun motore (qualche centinaio di millisecondi in tutto) e non
+     * vengono registrate nelle {@link SortMetrics}. Il chiamante deve evitare di ordinare altri dati nel frattempo.
+     *
+     * @return il modello calibrato.
+     */
+    static CostModel calibrate() {
+        CostModel calibrated = SortMetrics.withoutRecording(() -> CostModel.measure(ForkJoinPool.commonPool()));
+        model = calibrated;
+        return calibrated;
+    }
+
+    /**
+     * Profilo dell'input ricavato da un campione.
+     */
+    static final class Profile {
+        /** Numero di elementi dell'input. */
+        final int n;
+        /** Ampiezza dell'intervallo dei valori del campione: approssima per difetto quella reale. */
+        final long span;
+        /** Stima del numero di valori distinti dell'input. */
+        final long distinct;
+        /** Numero di elementi del campione e valori distinti osservati nel campione. */
+        final int samples;
+        final int sampleDistinct;
+        /** Il campione è in ordine crescente (o decrescente), anche fra gli elementi adiacenti a ogni campione. */
+        final boolean ascending;
+        final boolean descending;
+
+        private Profile(int n, long span, long distinct, int samples, int sampleDistinct, boolean ascending,
+                        boolean descending) {
+            this.n = n;
+            this.span = span;
+            this.distinct = distinct;
+            this.samples = samples;
+            this.sampleDistinct = sampleDistinct;
+            this.ascending = ascending;
+            this.descending = descending;
+        }
+
+        /**
+         * Calcola il profilo dell'array, non vuoto, leggendone al più {@code 2 * PROFILE_SAMPLE} elementi.
+         */
+        static Profile of(int[] arr) {
+            int n = arr.length;
+            int samples = Math.min(n, PROFILE_SAMPLE);
+            int[] sample = new int[samples];
+            boolean ascending = true;
+            boolean descending = true;
+            for (int s = 0; s < samples; s++) {
+                int index = (int) ((long) s * n / samples);
+                int v = arr[index];
+                sample[s] = v;
+                if (s > 0) {
+                    // Ordine tra campioni consecutivi e, se c'è, con l'elemento adiacente all'ultimo campione: un input
+                    // ordinato a tratti supera il primo controllo ma raramente anche il secondo.
+                    int previous = sample[s - 1];
+                    int neighbour = arr[index - 1];
+                    if (previous > v || neighbour > v) ascending = false;
+                    if (previous < v || neighbour < v) descending = false;
+                }
+            }
+            Arrays.sort(sample);
+            long span = (long) sample[samples - 1] - sample[0] + 1;
+            // Valori distinti del campione (d) e valori comparsi una sola volta (f1).
+            int distinct = 0;
+            int singletons = 0;
+            for (int s = 0; s < samples; ) {
+                int end = s + 1;
+                while (end < samples && sample[end] == sample[s]) end++;
+                distinct++;
+                if (end - s == 1) singletons++;
+                s = end;
+            }
+            long estimate = Math.round(Math.sqrt((double) n / samples) * singletons) + distinct - singletons;
+            estimate = Math.max(distinct, Math.min(Math.min(estimate, n), span));
+            return new Profile(n, span, estimate, samples, distinct, ascending, descending && !ascending);
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + n + ", span~" + span + ", distinct~" + distinct
+                    + (ascending ? ", crescente" : descending ? ", decrescente" : "");
+        }
+    }
+
+    /**
+     * Modello dei costi dei motori, con coefficienti in nanosecondi.
+     */
+    static final class CostModel {
+
+        /** Coefficienti misurati sulla macchina di riferimento. */
+        static final CostModel DEFAULTS = new CostModel(1.0, 2.5, 2.0, 2.2, 2.0, 0.3, 1.5, 50_000);
+
+        /** Costo per elemento del Counting Sort denso (ricerca di minimo e massimo, conteggio, ricostruzione). */
+        final double countingPerElement;
+        /**
+         * Costo per contatore dell'istogramma denso: allocazione, azzeramento e scansione, più gli accessi fuori cache
+         * che un istogramma ampio causa durante il conteggio.
+         */
+        final double countingPerBucket;
+        /** Costo per elemento del conteggio nella mappa sparsa. */
+        final double sparsePerElement;
+        /** Costo per elemento di ciascuna passata del Radix Sort. */
+        final double radixPerPass;
+        /** Costo per elemento e per livello ({@code log2} dei valori distinti) di {@link Arrays#sort(int[])}. */
+        final double comparisonPerLevel;
+        /** Costo per elemento della verifica e della copia di un input già ordinato. */
+        final double presortedPerElement;
+        /** Costo per elemento del Counting Sort parallelo, rispetto al tempo di un singolo thread. */
+        final double parallelPerElement;
+        /** Costo fisso di avvio dei task paralleli. */
+        final double parallelOverhead;
+
+        CostModel(double countingPerElement, double countingPerBucket, double sparsePerElement, double radixPerPass,
+                  double comparisonPerLevel, double presortedPerElement, double parallelPerElement,
+                  double parallelOverhead) {
+            this.countingPerElement = countingPerElement;
+            this.countingPerBucket = countingPerBucket;
+            this.sparsePerElement = sparsePerElement;
+            this.radixPerPass = radixPerPass;
+            this.comparisonPerLevel = comparisonPerLevel;
+            this.presortedPerElement = presortedPerElement;
+            this.parallelPerElement = parallelPerElement;
+            this.parallelOverhead = parallelOverhead;
+        }
+
+        /**
+         * @return il motore con il costo stimato minore per il profilo indicato.
+         */
+        Engine choose(Profile profile, int parallelism) {
+            if (profile.ascending || profile.descending) {
+                // La verifica completa costa una lettura: conviene comunque rispetto a qualunque ordinamento.
+                return Engine.PRESORTED;
+            }
+            return chooseUnsorted(profile, parallelism);
+        }
+
+        /**
+         * @return il motore con il costo stimato minore, escluso {@link Engine#PRESORTED}.
+         */
+        Engine chooseUnsorted(Profile profile, int parallelism) {
+            Engine best = Engine.COMPARISON;
+            double bestCost = cost(Engine.COMPARISON, profile, parallelism);
+            for (Engine engine : new Engine[]{Engine.COUNTING, Engine.PARALLEL_COUNTING, Engine.RADIX}) {
+                double c = cost(engine, profile, parallelism);
+                if (c < bestCost) {
+                    best = engine;
+                    bestCost = c;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @return il costo stimato in nanosecondi del motore per il profilo, oppure {@code +Infinity} se il motore non
+         *         è applicabile.
+         */
+        double cost(Engine engine, Profile profile, int parallelism) {
+            double n = profile.n;
+            switch (engine) {
+                case PRESORTED:
+                    return profile.ascending || profile.descending ? n * presortedPerElement : Double.POSITIVE_INFINITY;
+                case COUNTING:
+                    if (profile.span <= SortingLogic.denseSpanLimit(profile.n)) {
+                        return n * countingPerElement + profile.span * countingPerBucket;
+                    }
+                    // Intervallo troppo ampio: il Counting Sort conta in una mappa sparsa se il campione mostra pochi
+                    // valori distinti, con lo stesso criterio di HistogramBackend.select; altrimenti ricorre al radix.
+                    if (profile.sampleDistinct <= profile.samples / HistogramBackend.SPARSE_SAMPLE_DIVISOR) {
+                        return n * sparsePerElement + profile.distinct * comparisonPerLevel * log2(profile.distinct);
+                    }
+                    return Double.POSITIVE_INFINITY;
+                case PARALLEL_COUNTING: {
+                    if (parallelism < 2 || profile.n < ParallelCountingSort.SEQUENTIAL_THRESHOLD) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                    int chunks = ParallelCountingSort.chunkCount(profile.n, parallelism);
+                    if (profile.span * chunks > profile.n) return Double.POSITIVE_INFINITY;
+                    return parallelOverhead
+                            + (n * parallelPerElement + (double) profile.span * chunks * countingPerBucket) / parallelism;
+                }
+                case RADIX:
+                    // Oltre alle passate, gli istogrammi di tutte le cifre: un costo fisso che pesa sugli array piccoli.
+                    return n * radixPerPass * radixPasses(profile.span) + RADIX_BUCKETS * countingPerBucket;
+                case COMPARISON:
+                    return n * comparisonPerLevel * log2(Math.min(profile.n, profile.distinct));
+                default:
+                    throw new IllegalArgumentException("Motore sconosciuto: " + engine);
+            }
+        }
+
+        /**
+         * Misura i coefficienti con brevi prove su input sintetici e li limita a un fattore
+         * {@value #CALIBRATION_CLAMP} dai valori predefiniti.
+         */
+        static CostModel measure(ForkJoinPool pool) {
+            int n = CALIBRATION_SIZE;
+            SplittableRandom random = new SplittableRandom(n);
+            int[] narrow = new int[n];
+            int[] wide = new int[n];
+            int[] full = new int[n];
+            int[] sparse = new int[n];
+            int[] keys = new int[64];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = random.nextInt();
+            }
+            for (int i = 0; i < n; i++) {
+                narrow[i] = random.nextInt(256);
+                wide[i] = random.nextInt(4 * n);
+                full[i] = random.nextInt();
+                sparse[i] = keys[random.nextInt(keys.length)];
+            }
+            int[] ascending = narrow.clone();
+            Arrays.sort(ascending);
+
+            double narrowTime = time(() -> SortingLogic.countingSort(narrow));
+            double wideTime = time(() -> SortingLogic.countingSort(wide));
+            double countingPerElement = narrowTime / n;
+            double countingPerBucket = Math.max(0, wideTime - narrowTime) / (4.0 * n);
+            double sparsePerElement = time(() -> SortingLogic.countingSort(sparse)) / n;
+            double radixPerPass = time(() -> RadixSort.sort(full)) / (n * (double) radixPasses(1L << 32));
+            double comparisonPerLevel = time(() -> {
+                int[] copy = full.clone();
+                Arrays.sort(copy);
+                return copy;
+            }) / (n * log2(n));
+            double presortedPerElement = time(() -> sort(ascending, pool)) / n;
+
+            CostModel d = DEFAULTS;
+            double parallelPerElement = d.parallelPerElement;
+            double parallelOverhead = d.parallelOverhead;
+            int parallelism = pool.getParallelism();
+            if (parallelism >= 2) {
+                // Il Counting Sort parallelo si misura sopra la propria soglia, su un intervallo stretto.
+                int[] large = new int[ParallelCountingSort.SEQUENTIAL_THRESHOLD * 2];
+                for (int i = 0; i < large.length; i++) {
+                    large[i] = random.nextInt(256);
+                }
+                double parallelTime = time(() -> ParallelCountingSort.sort(large, pool));
+                parallelPerElement = Math.max(0, parallelTime - parallelOverhead) * parallelism / large.length;
+            }
+            return new CostModel(
+                    clamp(countingPerElement, d.countingPerElement),
+                    clamp(countingPerBucket, d.countingPerBucket),
+                    clamp(sparsePerElement, d.sparsePerElement),
+                    clamp(radixPerPass, d.radixPerPass),
+                    clamp(comparisonPerLevel, d.comparisonPerLevel),
+                    clamp(presortedPerElement, d.presortedPerElement),
+                    clamp(parallelPerElement, d.parallelPerElement),
+                    parallelOverhead);
+        }
+
+        /**
+         * @return il tempo minimo in nanosecondi di {@value #CALIBRATION_RUNS} esecuzioni, dopo il riscaldamento.
+         */
+        private static double time(Supplier<int[]> sort) {
+            int sink = 0;
+            for (int r = 0; r < CALIBRATION_WARMUP; r++) {
+                sink += sort.get().length;
+            }
+            long best = Long.MAX_VALUE;
+            for (int r = 0; r < CALIBRATION_RUNS; r++) {
+                long start = System.nanoTime();
+                sink += sort.get().length;
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (sink == 42) Thread.yield();     // Impedisce che il risultato venga considerato inutilizzato.
+            return best;
+        }
+
+        private static double clamp(double measured, double reference) {
+            return Math.max(reference / CALIBRATION_CLAMP, Math.min(reference * CALIBRATION_CLAMP, measured));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "counting %.2f ns/el + %.2f ns/bucket, sparse %.2f ns/el, radix %.2f ns/el/pass, "
+                            + "comparison %.2f ns/el/level, presorted %.2f ns/el, parallel %.2f ns/el + %.0f ns",
+                    countingPerElement, countingPerBucket, sparsePerElement, radixPerPass, comparisonPerLevel,
+                    presortedPerElement, parallelPerElement, parallelOverhead);
+        }
+    }
+
+    /**
+     * @return il numero di passate del Radix Sort per un'ampiezza {@code span}: una per cifra di 8 bit non costante.
+     */
+    static int radixPasses(long span) {
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, span - 1));
+        return Math.max(1, (bits + RadixSort.INT_DIGIT_BITS - 1) / RadixSort.INT_DIGIT_BITS);
+    }
+
+    private static double log2(long x) {
+        return Math.log(Math.max(2, x)) / Math.log(2);
+    }
+}
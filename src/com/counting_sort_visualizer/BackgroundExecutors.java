@@ -0,0 +1,45 @@
+package com.counting_sort_visualizer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fabbrica degli executor usati per eseguire generazione e ordinamento fuori dal thread dell'interfaccia grafica.
+ *
+ * Quando la JVM lo consente si utilizzano i thread virtuali ({@code Executors.newVirtualThreadPerTaskExecutor()},
+ * disponibile da Java 21), individuati per riflessione così che il progetto resti compilabile con Java 8; in caso
+ * contrario si ricorre a un pool di thread daemon che non impediscono la chiusura dell'applicazione.
+ */
+final class BackgroundExecutors {
+
+    private BackgroundExecutors() {
+    }
+
+    /**
+     * Crea un executor per i task in background.
+     *
+     * @param name il prefisso dei nomi dei thread creati (usato soltanto dal pool di ripiego).
+     * @return un executor basato sui thread virtuali, se disponibili, oppure un pool di thread daemon.
+     */
+    static ExecutorService newExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Thread virtuali non disponibili (JVM precedente a Java 21 o funzionalità non abilitata).
+            return Executors.newCachedThreadPool(daemonThreadFactory(name));
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);   // I task in corso non devono trattenere la JVM alla chiusura della finestra.
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,207 @@
+package com.counting_sort_visualizer;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Motore di animazione delle barre basato su un unico {@link AnimationTimer}.
+ *
+ * Invece di creare una {@code KeyFrame}, una {@code ScaleTransition}, un {@code Glow} e una {@code Timeline} per ogni
+ * barra, le animazioni vengono descritte come un elenco di passi precalcolati (istante, barra, tipo, valore) memorizzato
+ * in un buffer di interi primitivi. A ogni impulso del thread JavaFX il motore:
+ * 1. applica tutti i passi il cui istante è già trascorso, accorpando quelli che cadono nello stesso fotogramma
+ *    (per ogni barra conta soltanto l'ultimo valore assegnato);
+ * 2. fa decadere l'intensità dell'evidenziazione delle barre attive;
+ * 3. comunica alla vista soltanto le barre effettivamente modificate, con un'unica conferma finale per fotogramma.
+ *
+ * Tutti gli array di lavoro sono allocati all'avvio: durante la riproduzione il motore non effettua allocazioni,
+ * indipendentemente dal numero di barre.
+ */
+public final class BarAnimationEngine extends AnimationTimer {
+
+    /**
+     * Vista su cui il motore applica gli stati delle barre.
+     */
+    public interface BarView {
+
+        /**
+         * @return il numero di barre della vista.
+         */
+        int barCount();
+
+        /**
+         * Imposta il valore (l'altezza) di una barra.
+         */
+        void setBarValue(int index, int value);
+
+        /**
+         * Imposta l'intensità dell'evidenziazione di una barra, compresa tra 0 (nessuna) e 1 (massima).
+         */
+        void setBarHighlight(int index, double level);
+
+        /**
+         * Conferma le modifiche del fotogramma corrente (per esempio ridisegnando una superficie).
+         */
+        void commitFrame();
+    }
+
+    // Tipi di passo: evidenziazione di una barra oppure assegnazione di un nuovo valore (con evidenziazione).
+    private static final int HIGHLIGHT = 0;
+    private static final int SET_VALUE = 1;
+    // Durata del decadimento dell'evidenziazione, dal livello massimo a zero.
+    private static final double HIGHLIGHT_DECAY_MS = 250.0;
+
+    private final BarView view;
+    // Passi codificati a terne consecutive: istante in microsecondi, (barra << 1) | tipo, valore.
+    private final GrowableIntArray steps = new GrowableIntArray(1024);
+    private Runnable onFinished;
+
+    // Stato di riproduzione, allocato all'avvio.
+    private long startNanos = -1;
+    private long lastNanos;
+    private int nextStep;
+    private float[] highlight;
+    private int[] active;         // Barre con evidenziazione non nulla.
+    private int activeCount;
+    private boolean[] isActive;
+    private int[] pendingValue;   // Ultimo valore assegnato a ciascuna barra nel fotogramma corrente.
+    private int[] dirty;          // Barre il cui valore è cambiato nel fotogramma corrente.
+    private int dirtyCount;
+    private boolean[] isDirty;
+
+    /**
+     * Crea un motore che anima la vista indicata.
+     *
+     * @param view la vista delle barre da animare.
+     */
+    public BarAnimationEngine(BarView view) {
+        this.view = view;
+    }
+
+    /**
+     * Pianifica l'evidenziazione di una barra.
+     *
+     * @param timeMs l'istante, in millisecondi dall'avvio, in cui evidenziare la barra.
+     * @param index  l'indice della barra.
+     * @param level  l'intensità iniziale dell'evidenziazione, tra 0 e 1.
+     */
+    public void highlightAt(double timeMs, int index, double level) {
+        addStep(timeMs, index, HIGHLIGHT, (int) Math.round(level * 1000));
+    }
+
+    /**
+     * Pianifica l'assegnazione di un nuovo valore a una barra, che viene anche evidenziata al massimo livello.
+     *
+     * @param timeMs l'istante, in millisecondi dall'avvio, in cui assegnare il valore.
+     * @param index  l'indice della barra.
+     * @param value  il nuovo valore della barra.
+     */
+    public void setValueAt(double timeMs, int index, int value) {
+        addStep(timeMs, index, SET_VALUE, value);
+    }
+
+    /**
+     * @param onFinished l'azione da eseguire al termine della riproduzione (non eseguita se il motore viene fermato prima).
+     */
+    public void setOnFinished(Runnable onFinished) {
+        this.onFinished = onFinished;
+    }
+
+    private void addStep(double timeMs, int index, int kind, int value) {
+        int time = (int) Math.round(timeMs * 1000);
+        // I passi devono essere aggiunti in ordine di tempo: la riproduzione li scorre sequenzialmente.
+        if (steps.size() > 0 && time < steps.get(steps.size() - 3)) {
+            throw new IllegalArgumentException("passi non in ordine di tempo: " + timeMs + " ms");
+        }
+        steps.add(time);
+        steps.add(index << 1 | kind);
+        steps.add(value);
+    }
+
+    @Override
+    public void start() {
+        int n = view.barCount();
+        highlight = new float[n];
+        active = new int[n];
+        isActive = new boolean[n];
+        pendingValue = new int[n];
+        dirty = new int[n];
+        isDirty = new boolean[n];
+        activeCount = 0;
+        dirtyCount = 0;
+        nextStep = 0;
+        startNanos = -1;
+        super.start();
+    }
+
+    @Override
+    public void handle(long now) {
+        if (startNanos < 0) {
+            startNanos = now;
+            lastNanos = now;
+        } else {
+            SortMetrics.global().recordFrame(now - lastNanos);   // Intervallo tra due impulsi consecutivi.
+        }
+        long elapsedMicros = (now - startNanos) / 1000;
+        float decay = (float) ((now - lastNanos) / 1_000_000.0 / HIGHLIGHT_DECAY_MS);
+        lastNanos = now;
+
+        // Decadimento delle evidenziazioni già attive.
+        for (int k = 0; k < activeCount; k++) {
+            int index = active[k];
+            highlight[index] = Math.max(0f, highlight[index] - decay);
+        }
+
+        // Applicazione (accorpata) dei passi maturati in questo fotogramma.
+        int total = steps.size();
+        while (nextStep < total && steps.get(nextStep) <= elapsedMicros) {
+            int packed = steps.get(nextStep + 1);
+            int value = steps.get(nextStep + 2);
+            int index = packed >>> 1;
+            if ((packed & 1) == SET_VALUE) {
+                pendingValue[index] = value;
+                if (!isDirty[index]) {
+                    isDirty[index] = true;
+                    dirty[dirtyCount++] = index;
+                }
+                activate(index, 1f);
+            } else {
+                activate(index, value / 1000f);
+            }
+            nextStep += 3;
+        }
+
+        for (int k = 0; k < dirtyCount; k++) {
+            int index = dirty[k];
+            isDirty[index] = false;
+            view.setBarValue(index, pendingValue[index]);
+        }
+        dirtyCount = 0;
+
+        // Aggiornamento delle evidenziazioni e rimozione delle barre tornate allo stato normale.
+        int kept = 0;
+        for (int k = 0; k < activeCount; k++) {
+            int index = active[k];
+            view.setBarHighlight(index, highlight[index]);
+            if (highlight[index] > 0f) {
+                active[kept++] = index;
+            } else {
+                isActive[index] = false;
+            }
+        }
+        activeCount = kept;
+        view.commitFrame();
+
+        if (nextStep >= total && activeCount == 0) {
+            stop();
+            if (onFinished != null) onFinished.run();
+        }
+    }
+
+    private void activate(int index, float level) {
+        highlight[index] = Math.max(highlight[index], level);
+        if (!isActive[index]) {
+            isActive[index] = true;
+            active[activeCount++] = index;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.counting_sort_visualizer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Modalità a riga di comando, senza interfaccia grafica, per ordinare file di interi anche più grandi dell'heap.
+ *
+ * Il Counting Sort non ha bisogno di tenere in memoria l'input: basta l'istogramma dei valori. Il file di ingresso viene
+ * quindi letto attraverso finestre mappate in memoria ({@link MappedByteBuffer}), contando ogni valore in un
+ * {@link WideRangeHistogram}; l'output ordinato viene poi scritto sequenzialmente a partire dall'istogramma, tramite
+ * finestre mappate (formato binario) o un buffer diretto (formato testuale).
+ *
+ * Finché l'intervallo dei valori resta entro {@link WideRangeHistogram#DIRECT_WIDTH} contatori basta una passata. Con
+ * un intervallo più ampio il file viene riletto una seconda volta e i valori vengono distribuiti per bucket in un file
+ * temporaneo, grande quanto l'input e creato nella cartella del file di uscita. In entrambi i casi l'istogramma occupa
+ * al più 8 MiB di heap, qualunque siano il numero e l'ampiezza dei valori.
+ *
+ * Formati supportati:
+ * - {@code binary}: interi a 32 bit consecutivi, big-endian per impostazione predefinita ({@code --little-endian}
+ *   per l'ordine inverso); la lunghezza del file deve essere un multiplo di 4 byte;
+ * - {@code text}: un intero decimale per riga, con le stesse regole dell'area testuale dell'applicazione (spazi
+ *   ignorati, righe vuote saltate, righe non valide scartate e conteggiate).
+ *
+ * Utilizzo:
+ * <pre>
+ * java -cp bin com.counting_sort_visualizer.BatchSortCli --input dati.bin --output ordinati.bin [--format binary|text]
+ *      [--output-format binary|text] [--little-endian] [--workers n]
+ * </pre>
+ * Con {@code --workers} un file binario viene ordinato da {@code n} processi locali con
+ * {@link DistributedCountingSort}, ciascuno dei quali conta e scrive una porzione dei dati.
+ * La stessa modalità è raggiungibile da {@code CountingSortVisualizer} con l'opzione {@code --batch} come primo
+ * argomento, se JavaFX è disponibile.
+ */
+public final class BatchSortCli {
+
+    // Dimensione massima di una finestra mappata in memoria (multiplo di 4, per non spezzare gli interi binari).
+    static final int MAP_WINDOW = 1 << 30;
+    // Dimensione del buffer diretto usato per scrivere l'output testuale.
+    private static final int TEXT_BUFFER_SIZE = 1 << 20;
+    // Numero di interi letti o scritti per ogni trasferimento in blocco tra finestre mappate e array.
+    private static final int INT_CHUNK = 1 << 14;
+
+    /**
+     * Formato dei file di ingresso e di uscita.
+     */
+    enum Format {
+        BINARY, TEXT
+    }
+
+    private BatchSortCli() {
+    }
+
+    /**
+     * Punto di ingresso della modalità a riga di comando.
+     *
+     * @param args le opzioni descritte nella documentazione della classe.
+     */
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Esegue l'ordinamento descritto dagli argomenti.
+     *
+     * @return il codice di uscita del processo: 0 in caso di successo, 1 per un errore di I/O o di dati, 2 per argomenti
+     *         non validi.
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Path input = null;
+        Path output = null;
+        Format inputFormat = Format.BINARY;
+        Format outputFormat = null;
+        ByteOrder order = ByteOrder.BIG_ENDIAN;
+        int workers = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--input":
+                        input = Paths.get(args[++i]);
+                        break;
+                    case "--output":
+                        output = Paths.get(args[++i]);
+                        break;
+                    case "--format":
+                        inputFormat = Format.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--output-format":
+                        outputFormat = Format.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--little-endian":
+                        order = ByteOrder.LITTLE_ENDIAN;
+                        break;
+                    case "--workers":
+                        workers = Integer.parseInt(args[++i]);
+                        if (workers < 1) {
+                            throw new IllegalArgumentException("Numero di processi non valido: " + workers);
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opzione sconosciuta: " + args[i]);
+                }
+            }
+            if (input == null || output == null) {
+                throw new IllegalArgumentException("Le opzioni --input e --output sono obbligatorie");
+            }
+            if (workers > 0 && (inputFormat != Format.BINARY || (outputFormat != null && outputFormat != Format.BINARY))) {
+                throw new IllegalArgumentException("L'opzione --workers richiede file binari");
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            err.println(e instanceof ArrayIndexOutOfBoundsException ? "Valore mancante per l'ultima opzione" : e.getMessage());
+            err.println("Utilizzo: --input <file> --output <file> [--format binary|text] "
+                    + "[--output-format binary|text] [--little-endian] [--workers n]");
+            return 2;
+        }
+        if (outputFormat == null) outputFormat = inputFormat;
+
+        long start = System.nanoTime();
+        if (workers > 0) {
+            try {
+                long sorted = DistributedCountingSort.sortFile(input, output, order, workers);
+                out.printf("Ordinati %d valori con %d processi in %d ms%n", sorted, workers,
+                        (System.nanoTime() - start) / 1_000_000);
+                return 0;
+            } catch (IOException | IllegalStateException e) {
+                err.println("Errore: " + e.getMessage());
+                return 1;
+            }
+        }
+        Path directory = output.toAbsolutePath().getParent();
+        try (WideRangeHistogram histogram = new WideRangeHistogram(directory)) {
+            long rejected = 0;
+            if (inputFormat == Format.BINARY) {
+                readBinary(input, order, histogram::addAll);
+            } else {
+                rejected = readText(input, histogram::add);
+            }
+            if (histogram.needsSecondPass()) {
+                // Intervallo troppo ampio per il conteggio diretto: i valori vengono riletti e distribuiti per bucket.
+                histogram.beginSecondPass();
+                if (inputFormat == Format.BINARY) {
+                    readBinary(input, order, histogram::distributeAll);
+                } else {
+                    readText(input, histogram::distribute);
+                }
+            }
+            long total = histogram.total();
+            if (outputFormat == Format.BINARY) {
+                writeBinary(output, order, total, histogram::forEachRun);
+            } else {
+                writeText(output, histogram::forEachRun);
+            }
+            out.printf("Ordinati %d valori", total);
+            if (total > 0) {
+                out.printf(" nell'intervallo [%d, %d]", histogram.min(), histogram.max());
+            }
+            out.printf(" in %d ms; righe scartate: %d%n", (System.nanoTime() - start) / 1_000_000, rejected);
+            return 0;
+        } catch (IOException | IllegalStateException e) {
+            err.println("Errore: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Legge gli interi binari del file a finestre mappate in memoria, passando ogni finestra a {@code sink}.
+     */
+    static void readBinary(Path file, ByteOrder order, Consumer<ByteBuffer> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % 4 != 0) {
+                throw new IllegalStateException("La lunghezza del file binario non è un multiplo di 4 byte: " + size);
+            }
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                long length = Math.min(MAP_WINDOW, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                sink.accept(window.order(order));
+            }
+        }
+    }
+
+    /**
+     * Legge gli interi testuali del file, uno per riga, a finestre mappate in memoria, passando ogni valore a
+     * {@code sink}.
+     *
+     * @return il numero di righe non vuote scartate perché non rappresentano un intero valido.
+     */
+    static long readText(Path file, IntConsumer sink) throws IOException {
+        LineScanner scanner = new LineScanner(sink);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                long length = Math.min(MAP_WINDOW, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                // Lo scanner conserva il proprio stato tra una finestra e l'altra: una riga può attraversarne il confine.
+                while (window.hasRemaining()) {
+                    scanner.accept(window.get());
+                }
+            }
+        }
+        scanner.endLine();
+        return scanner.rejected;
+    }
+
+    /**
+     * Scrive l'output ordinato in formato binario, a finestre mappate in memoria.
+     */
+    static void writeBinary(Path file, ByteOrder order, long total, Consumer<CountingHistogram.RunConsumer> runs)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryWriter writer = new BinaryWriter(channel, order, total * 4);
+            runs.accept(writer::writeRun);
+            writer.finish();
+        }
+    }
+
+    /**
+     * Scrive l'output ordinato in formato testuale, un valore per riga, tramite un buffer diretto.
+     */
+    static void writeText(Path file, Consumer<CountingHistogram.RunConsumer> runs) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TEXT_BUFFER_SIZE);
+            byte[] line = new byte[12];            // "-2147483648\n" è la riga più lunga possibile.
+            IOException[] failure = new IOException[1];
+            runs.accept((value, count) -> {
+                if (failure[0] != null) return;
+                int length = formatLine(value, line);
+                try {
+                    for (long c = 0; c < count; c++) {
+                        if (buffer.remaining() < length) {
+                            drain(channel, buffer);
+                        }
+                        buffer.put(line, 0, length);
+                    }
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Scrive in {@code line} la rappresentazione decimale di {@code value} seguita da un a capo.
+     *
+     * @return il numero di byte scritti.
+     */
+    static int formatLine(int value, byte[] line) {
+        // Le cifre vengono prodotte da destra a sinistra lavorando sul valore negativo, che include Integer.MIN_VALUE.
+        int end = line.length;
+        int position = end;
+        line[--position] = '\n';
+        int v = value < 0 ? value : -value;
+        do {
+            line[--position] = (byte) ('0' - v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) line[--position] = '-';
+        int length = end - position;
+        System.arraycopy(line, position, line, 0, length);
+        return length;
+    }
+
+    /**
+     * Scrittore dell'output binario: riempie sequenzialmente le finestre mappate del file, aprendone una nuova quando la
+     * precedente è piena.
+     */
+    private static final class BinaryWriter {
+        private final FileChannel channel;
+        private final ByteOrder order;
+        private final long size;
+        private final int[] run = new int[INT_CHUNK];
+        private int runValue;
+        // Numero di copie di runValue presenti all'inizio di run.
+        private int runFilled;
+        private long position;
+        private IntBuffer window;
+        private IOException failure;
+
+        BinaryWriter(FileChannel channel, ByteOrder order, long size) {
+            this.channel = channel;
+            this.order = order;
+            this.size = size;
+        }
+
+        void writeRun(int value, long count) {
+            if (failure != null) return;
+            if (runFilled == 0 || runValue != value) {
+                runValue = value;
+                runFilled = 0;
+            }
+            // Blocco di copie del valore, scritto più volte per le sequenze lunghe: si riempie soltanto quanto serve,
+            // così che i valori distinti con poche occorrenze non paghino l'intero blocco.
+            int needed = (int) Math.min(count, run.length);
+            if (runFilled < needed) {
+                Arrays.fill(run, runFilled, needed, value);
+                runFilled = needed;
+            }
+            try {
+                long remaining = count;
+                while (remaining > 0) {
+                    if (window == null || !window.hasRemaining()) {
+                        long length = Math.min(MAP_WINDOW, size - position);
+                        window = channel.map(FileChannel.MapMode.READ_WRITE, position, length).order(order).asIntBuffer();
+                        position += length;
+                    }
+                    int n = (int) Math.min(remaining, Math.min(run.length, window.remaining()));
+                    window.put(run, 0, n);
+                    remaining -= n;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        void finish() throws IOException {
+            if (failure != null) throw failure;
+        }
+    }
+
+    /**
+     * Analizzatore a stati delle righe di testo, alimentato un byte alla volta. Applica le stesse regole di
+     * {@link IntTextParser} (per i soli separatori di riga ASCII) senza mai costruire stringhe.
+     */
+    private static final class LineScanner {
+        private final IntConsumer sink;
+        private long rejected;
+        // Stato della riga corrente.
+        private boolean seen;          // Sono stati letti caratteri diversi dagli spazi.
+        private boolean trailing;      // Sono stati letti spazi dopo il contenuto della riga.
+        private boolean invalid;
+        private boolean negative;
+        private int digits;
+        private long magnitude;
+
+        LineScanner(IntConsumer sink) {
+            this.sink = sink;
+        }
+
+        void accept(byte b) {
+            if (b == '\n' || b == '\r' || b == 0x0B || b == 0x0C) {
+                endLine();
+            } else if ((b & 0xFF) <= ' ') {
+                if (seen) trailing = true;
+            } else if (invalid) {
+                // Riga già scartata: si attende soltanto la fine.
+            } else if (trailing) {
+                invalid = true;                  // Contenuto dopo uno spazio interno: la riga non è un intero.
+            } else if (!seen && (b == '-' || b == '+')) {
+                seen = true;
+                negative = b == '-';
+            } else if (b >= '0' && b <= '9') {
+                seen = true;
+                digits++;
+                magnitude = magnitude * 10 + (b - '0');
+                if (magnitude > 1L << 31) invalid = true;   // Oltre ogni valore rappresentabile da int.
+            } else {
+                seen = true;
+                invalid = true;
+            }
+        }
+
+        void endLine() {
+            if (seen) {
+                long value = negative ? -magnitude : magnitude;
+                if (invalid || digits == 0 || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    rejected++;
+                } else {
+                    sink.accept((int) value);
+                }
+            }
+            seen = false;
+            trailing = false;
+            invalid = false;
+            negative = false;
+            digits = 0;
+            magnitude = 0;
+        }
+    }
+}
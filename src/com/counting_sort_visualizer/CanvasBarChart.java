@@ -0,0 +1,250 @@
+package com.counting_sort_visualizer;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Grafico a barre disegnato direttamente su un {@link Canvas}, destinato agli array troppo grandi per un
+ * {@code BarChart}: quest'ultimo crea un nodo della scena per ogni elemento, mentre qui l'intero grafico è un'unica
+ * superficie di disegno.
+ *
+ * Quando gli elementi sono più delle colonne di pixel disponibili, l'array viene ricondotto a un "bucket" per colonna:
+ * per ciascun bucket si disegna una barra alta quanto il massimo e, con un colore più intenso, la parte fino al minimo,
+ * così che la forma dei dati resti leggibile anche con milioni di elementi. Il costo di un ridisegno è quindi
+ * O(n) per la scansione dei valori più O(larghezza) per il disegno, indipendentemente dal numero di nodi.
+ *
+ * L'aspetto richiama quello del {@code BarChart} (titolo, assi, colore della prima serie) e, al passaggio del mouse,
+ * un'etichetta riporta l'indice e il valore della barra (oppure l'intervallo di indici e il minimo/massimo del bucket).
+ *
+ * Il grafico è anche una {@link BarAnimationEngine.BarView}: le barre evidenziate vengono disegnate con un colore più
+ * chiaro (per i bucket conta l'evidenziazione più intensa) e ogni fotogramma dell'animazione produce un solo ridisegno.
+ */
+public class CanvasBarChart extends Region implements BarAnimationEngine.BarView {
+
+    // Colori ripresi dalla prima serie del tema Modena usato dal BarChart.
+    private static final Color BAR_COLOR = Color.web("#f3622d");
+    private static final Color BAR_MIN_COLOR = Color.web("#c4461a");
+    private static final Color AXIS_COLOR = Color.web("#5c5c5c");
+    // Colori precalcolati per i livelli di evidenziazione, così che il ridisegno non crei nuovi oggetti Color.
+    private static final Color[] HIGHLIGHT_COLORS = new Color[9];
+    static {
+        for (int i = 0; i < HIGHLIGHT_COLORS.length; i++) {
+            HIGHLIGHT_COLORS[i] = BAR_COLOR.interpolate(Color.GOLD, i / (double) (HIGHLIGHT_COLORS.length - 1));
+        }
+    }
+    private static final Font TITLE_FONT = Font.font(16);
+    private static final Font AXIS_FONT = Font.font(12);
+    // Margini dell'area di disegno, che lasciano spazio al titolo e alle etichette degli assi.
+    private static final double TOP = 40;
+    private static final double LEFT = 60;
+    private static final double RIGHT = 15;
+    private static final double BOTTOM = 35;
+
+    private final Canvas canvas = new Canvas();
+    private final Label hoverLabel = new Label();
+    private final String title;
+    // Dati visualizzati: l'array non viene copiato, per cui va ridisegnato con redraw() dopo ogni modifica.
+    private int[] data = new int[0];
+    // Intensità dell'evidenziazione di ciascun elemento, usata durante le animazioni.
+    private float[] highlight = new float[0];
+    // Estremi dell'asse verticale, ricalcolati a ogni ridisegno.
+    private int axisMin;
+    private int axisMax;
+
+    /**
+     * Crea un grafico vuoto con il titolo indicato.
+     *
+     * @param title il titolo mostrato sopra il grafico.
+     */
+    public CanvasBarChart(String title) {
+        this.title = title;
+        setStyle("-fx-background-color: white;");
+        hoverLabel.setStyle("-fx-background-color: rgba(255,255,255,0.9); -fx-border-color: #999999; -fx-padding: 3 6 3 6;");
+        hoverLabel.setVisible(false);
+        hoverLabel.setMouseTransparent(true);
+        getChildren().addAll(canvas, hoverLabel);
+        canvas.setOnMouseMoved(e -> updateHover(e.getX(), e.getY()));
+        canvas.setOnMouseExited(e -> hoverLabel.setVisible(false));
+    }
+
+    /**
+     * Imposta l'array da visualizzare e ridisegna il grafico.
+     *
+     * @param data i valori da visualizzare; l'array viene referenziato, non copiato.
+     */
+    public void setData(int[] data) {
+        this.data = data;
+        this.highlight = new float[data.length];
+        redraw();
+    }
+
+    /**
+     * @return l'array attualmente visualizzato.
+     */
+    public int[] getData() {
+        return data;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            redraw();
+        }
+        hoverLabel.autosize();
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return 800;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return 400;
+    }
+
+    /**
+     * Ridisegna l'intero grafico a partire dai dati correnti.
+     */
+    public void redraw() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        g.clearRect(0, 0, width, height);
+        double plotWidth = width - LEFT - RIGHT;
+        double plotHeight = height - TOP - BOTTOM;
+        if (plotWidth <= 0 || plotHeight <= 0) return;
+
+        // Titolo del grafico, come nel BarChart.
+        g.setFill(Color.BLACK);
+        g.setFont(TITLE_FONT);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.fillText(title, width / 2, TOP / 2);
+
+        int n = data.length;
+        // Estremi dell'asse verticale: lo zero è sempre incluso, così che le barre partano dalla linea di base.
+        axisMin = 0;
+        axisMax = 1;
+        for (int v : data) {
+            if (v < axisMin) axisMin = v;
+            if (v > axisMax) axisMax = v;
+        }
+        double scale = plotHeight / ((double) axisMax - axisMin);
+        double baseline = TOP + axisMax * scale;
+
+        if (n > 0) {
+            int columns = (int) Math.min(n, Math.floor(plotWidth));
+            double columnWidth = plotWidth / columns;
+            // Con pochi elementi si lascia uno spazio tra le barre, come nel BarChart.
+            double gap = columnWidth >= 4 ? columnWidth * 0.2 : 0;
+            for (int c = 0; c < columns; c++) {
+                int from = (int) ((long) c * n / columns);
+                int to = (int) ((long) (c + 1) * n / columns);
+                int min = data[from];
+                int max = data[from];
+                for (int i = from + 1; i < to; i++) {
+                    int v = data[i];
+                    if (v < min) min = v;
+                    else if (v > max) max = v;
+                }
+                float level = 0f;
+                for (int i = from; i < to; i++) {
+                    level = Math.max(level, highlight[i]);
+                }
+                Color color = HIGHLIGHT_COLORS[Math.round(level * (HIGHLIGHT_COLORS.length - 1))];
+                double x = LEFT + c * columnWidth + gap / 2;
+                double w = Math.max(1, columnWidth - gap);
+                // Barra fino al valore più lontano dallo zero e, più intensa, fino a quello più vicino.
+                int far = max > 0 ? max : min;
+                int near = max > 0 ? Math.max(min, 0) : Math.min(max, 0);
+                fillBar(g, color, x, w, baseline, far, scale);
+                if (near != 0 && to - from > 1) {
+                    fillBar(g, BAR_MIN_COLOR, x, w, baseline, near, scale);
+                }
+            }
+        }
+
+        // Assi ed etichette degli estremi.
+        g.setStroke(AXIS_COLOR);
+        g.setLineWidth(1);
+        g.strokeLine(LEFT, TOP, LEFT, TOP + plotHeight);
+        g.strokeLine(LEFT, baseline, LEFT + plotWidth, baseline);
+        g.setFill(AXIS_COLOR);
+        g.setFont(AXIS_FONT);
+        g.setTextAlign(TextAlignment.RIGHT);
+        g.fillText(String.valueOf(axisMax), LEFT - 6, TOP);
+        g.fillText(String.valueOf(axisMin), LEFT - 6, TOP + plotHeight);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.fillText("Indice (" + n + " elementi)", LEFT + plotWidth / 2, height - BOTTOM / 2);
+    }
+
+    @Override
+    public int barCount() {
+        return data.length;
+    }
+
+    @Override
+    public void setBarValue(int index, int value) {
+        data[index] = value;
+    }
+
+    @Override
+    public void setBarHighlight(int index, double level) {
+        highlight[index] = (float) Math.min(1.0, Math.max(0.0, level));
+    }
+
+    @Override
+    public void commitFrame() {
+        redraw();
+    }
+
+    private static void fillBar(GraphicsContext g, Color color, double x, double w, double baseline, int value, double scale) {
+        double h = Math.abs(value) * scale;
+        g.setFill(color);
+        g.fillRect(x, value >= 0 ? baseline - h : baseline, w, h);
+    }
+
+    /**
+     * Aggiorna l'etichetta di hover in base alla posizione del mouse.
+     */
+    private void updateHover(double mouseX, double mouseY) {
+        int n = data.length;
+        double plotWidth = canvas.getWidth() - LEFT - RIGHT;
+        if (n == 0 || mouseX < LEFT || mouseX >= LEFT + plotWidth) {
+            hoverLabel.setVisible(false);
+            return;
+        }
+        int columns = (int) Math.min(n, Math.floor(plotWidth));
+        int c = Math.min(columns - 1, (int) ((mouseX - LEFT) / (plotWidth / columns)));
+        int from = (int) ((long) c * n / columns);
+        int to = (int) ((long) (c + 1) * n / columns);
+        if (to - from == 1) {
+            hoverLabel.setText("Indice " + from + ": " + data[from]);
+        } else {
+            int min = data[from];
+            int max = data[from];
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, data[i]);
+                max = Math.max(max, data[i]);
+            }
+            hoverLabel.setText("Indici " + from + "-" + (to - 1) + ": min " + min + ", max " + max);
+        }
+        hoverLabel.autosize();
+        // L'etichetta segue il mouse restando all'interno del grafico.
+        double x = Math.min(mouseX + 12, getWidth() - hoverLabel.getWidth() - 2);
+        double y = Math.max(2, mouseY - hoverLabel.getHeight() - 6);
+        hoverLabel.relocate(x, y);
+        hoverLabel.setVisible(true);
+    }
+}
@@ -0,0 +1,555 @@
+package com.counting_sort_visualizer;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Accumulatore incrementale del Counting Sort: un istogramma di valori interi con contatori {@code long}, il cui
+ * intervallo si adatta ai valori man mano che arrivano.
+ *
+ * A differenza di {@link SortingLogic#countingSort(int[])}, che richiede l'intero array e scarta l'istogramma al
+ * termine, l'accumulatore riceve i dati a blocchi (array, {@link IntStream}, iteratori o {@link ByteBuffer}) e può
+ * produrre in qualsiasi momento l'output ordinato, in O(n + k) con k ampiezza dell'intervallo, senza riordinare i dati
+ * già ricevuti. È quindi adatto a mantenere una vista ordinata di un flusso continuo di valori.
+ *
+ * L'istogramma non richiede di conoscere in anticipo minimo e massimo: quando arriva un valore esterno all'intervallo
+ * corrente, l'array dei contatori viene riallocato con una capacità doppia del nuovo intervallo, con il margine diviso
+ * tra i due lati, e i contatori esistenti vengono traslati. La memoria è quindi proporzionale all'ampiezza dei valori
+ * e non al numero di elementi, ma la crescita è limitata dai valori contati: oltre {@link #FREE_WIDTH} contatori
+ * l'intervallo è ammesso soltanto finché non supera quattro contatori per valore ({@code COUNTING_SPAN_FACTOR}),
+ * contando anche il blocco in arrivo, e in nessun caso oltre {@link #MAX_WIDTH}. Un blocco che violerebbe il limite
+ * viene rifiutato con {@link IllegalStateException} prima di qualsiasi allocazione, e chi riceve dati di ampiezza
+ * ignota può verificarlo in anticipo con {@link #canAdd(int, int, long)}. Nel caso peggiore, con n valori contati,
+ * l'array dei contatori occupa {@code 8 * max(2^20, 4 * n)} byte (8 MiB per pochi valori sparsi, 1 GiB al massimo);
+ * durante un ampliamento il vecchio array convive con il nuovo fino al termine della copia. Chi deve restare entro un
+ * budget fisso di heap può abbassare il tetto con {@link #CountingHistogram(int)}.
+ *
+ * La classe non è thread-safe: per contare in parallelo partizioni note (per esempio i blocchi di un file) ogni thread
+ * usa il proprio accumulatore e i risultati vengono poi combinati con {@link #merge(CountingHistogram)}. Per gli stream
+ * paralleli conviene invece {@link #addAll(IntStream)}, che conta tutte le foglie in questo stesso accumulatore: un
+ * accumulatore per foglia, come in {@code collect(CountingHistogram::new, ...)}, moltiplicherebbe la memoria per il
+ * numero di foglie.
+ */
+public final class CountingHistogram {
+
+    /** Numero massimo di contatori (1 GiB di memoria): oltre, l'intervallo è troppo ampio per un conteggio diretto. */
+    public static final int MAX_WIDTH = 1 << 27;
+    /** Numero di contatori (8 MiB di memoria) sempre ammesso, qualunque sia il numero di valori contati. */
+    public static final int FREE_WIDTH = 1 << 20;
+    // Capacità iniziale dell'array dei contatori.
+    private static final int INITIAL_CAPACITY = 1024;
+    // Numero di interi trasferiti per volta dai ByteBuffer.
+    private static final int BUFFER_CHUNK = 4096;
+
+    // Numero massimo di contatori di questo accumulatore.
+    private final int maxWidth;
+    // Valore corrispondente al contatore di indice 0.
+    private int base;
+    private long[] counts = new long[0];
+    // Estremi dei valori effettivamente osservati (significativi soltanto se total > 0).
+    private int min;
+    private int max;
+    private long total;
+    // Numero di modifiche, per rilevare gli iteratori resi non validi.
+    private int modCount;
+    // Blocco di appoggio per la lettura dei ByteBuffer, allocato al primo utilizzo.
+    private int[] scratch;
+
+    /**
+     * Crea un accumulatore vuoto.
+     */
+    public CountingHistogram() {
+        this(MAX_WIDTH);
+    }
+
+    /**
+     * Crea un accumulatore vuoto che non supera mai {@code maxWidth} contatori, neppure con molti valori contati: un
+     * intervallo più ampio viene rifiutato come descritto nella classe.
+     *
+     * @param maxWidth il numero massimo di contatori, tra 1 e {@link #MAX_WIDTH}.
+     */
+    public CountingHistogram(int maxWidth) {
+        if (maxWidth < 1 || maxWidth > MAX_WIDTH) {
+            throw new IllegalArgumentException("Numero massimo di contatori non valido: " + maxWidth);
+        }
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * Conta un'occorrenza del valore indicato.
+     *
+     * @param value il valore da contare.
+     * @throws IllegalStateException se il valore porterebbe l'intervallo oltre il limite di contatori.
+     */
+    public void add(int value) {
+        long index = (long) value - base;
+        if (index < 0 || index >= counts.length) {
+            ensureRange(value, value, total + 1);
+            index = (long) value - base;
+        }
+        counts[(int) index]++;
+        if (total == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        total++;
+        modCount++;
+    }
+
+    /**
+     * Conta più occorrenze dello stesso valore: è la forma con cui si ricostruisce un istogramma ricevuto a sequenze
+     * (per esempio da {@link #forEachRun(RunConsumer)} di un altro processo).
+     *
+     * @param value       il valore da contare.
+     * @param occurrences il numero di occorrenze, non negativo.
+     * @throws IllegalStateException se il valore porterebbe l'intervallo oltre il limite di contatori.
+     */
+    public void add(int value, long occurrences) {
+        if (occurrences < 0) {
+            throw new IllegalArgumentException("Numero di occorrenze negativo: " + occurrences);
+        }
+        if (occurrences == 0) return;
+        long index = (long) value - base;
+        if (index < 0 || index >= counts.length) {
+            ensureRange(value, value, total + occurrences);
+            index = (long) value - base;
+        }
+        counts[(int) index] += occurrences;
+        if (total == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        total += occurrences;
+        modCount++;
+    }
+
+    /**
+     * Conta i valori di una porzione di array. Gli estremi del blocco vengono calcolati prima del conteggio, così che
+     * l'intervallo venga ampliato al più una volta e il ciclo di conteggio non contenga controlli.
+     *
+     * @param values l'array dei valori.
+     * @param from   l'indice iniziale (incluso).
+     * @param to     l'indice finale (escluso).
+     * @throws IllegalStateException se i valori porterebbero l'intervallo oltre il limite di contatori.
+     */
+    public void addAll(int[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new ArrayIndexOutOfBoundsException("Intervallo non valido: [" + from + ", " + to + ")");
+        }
+        addBlock(values, from, to, 0);
+    }
+
+    /**
+     * Conta un blocco di valori già validato. Il limite di contatori si calcola sul maggiore tra i valori contati
+     * compreso il blocco e {@code expected}, il totale atteso al termine dell'operazione di cui il blocco fa parte: un
+     * buffer o uno stream di dimensione nota è così giudicato per intero, e non rifiutato per un primo blocco sparso.
+     */
+    private void addBlock(int[] values, int from, int to, long expected) {
+        if (from == to) return;
+        int lo = values[from];
+        int hi = values[from];
+        for (int i = from + 1; i < to; i++) {
+            int v = values[i];
+            if (v < lo) lo = v;
+            else if (v > hi) hi = v;
+        }
+        if (lo < base || (long) hi - base >= counts.length) {
+            ensureRange(lo, hi, Math.max(expected, total + (to - from)));
+        }
+        long[] c = counts;
+        int b = base;
+        for (int i = from; i < to; i++) {
+            c[values[i] - b]++;
+        }
+        if (total == 0) {
+            min = lo;
+            max = hi;
+        } else {
+            min = Math.min(min, lo);
+            max = Math.max(max, hi);
+        }
+        total += to - from;
+        modCount++;
+    }
+
+    /**
+     * Conta tutti i valori di un array.
+     *
+     * @param values l'array dei valori.
+     */
+    public void addAll(int[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Conta i valori di uno stream, consumandolo. I valori vengono raccolti in blocchi di {@value #BUFFER_CHUNK} interi,
+     * contati in questo accumulatore; se la dimensione dello stream è nota o stimabile, il limite di contatori si calcola
+     * su tutti i suoi valori. In uno stream parallelo ogni foglia ha il proprio blocco e conta i blocchi pieni sotto lock: i valori
+     * vengono prodotti in parallelo, ma la memoria resta quella di un solo istogramma, qualunque sia il numero di foglie.
+     *
+     * @param values lo stream dei valori.
+     * @throws IllegalStateException se i valori porterebbero l'intervallo oltre il limite di contatori.
+     */
+    public void addAll(IntStream values) {
+        Spliterator.OfInt source = values.spliterator();
+        // Anche una stima (per esempio dopo un filter) va bene: il limite resta comunque entro MAX_WIDTH.
+        long size = source.estimateSize();
+        long expected = size == Long.MAX_VALUE ? 0 : total + size;
+        StreamSupport.intStream(source, values.isParallel())
+                .collect(() -> new StreamBlock(this, expected), StreamBlock::add, StreamBlock::combine).flush();
+    }
+
+    /**
+     * Conta i valori restanti di un iteratore, consumandolo.
+     *
+     * @param values l'iteratore dei valori.
+     */
+    public void addAll(PrimitiveIterator.OfInt values) {
+        while (values.hasNext()) {
+            add(values.nextInt());
+        }
+    }
+
+    /**
+     * Conta gli interi a 32 bit presenti tra posizione e limite del buffer, letti con l'ordine dei byte del buffer. La
+     * posizione del buffer avanza oltre gli interi letti; gli eventuali byte finali che non formano un intero completo
+     * restano nel buffer, così che possano essere completati dal blocco successivo del flusso.
+     *
+     * @param buffer il buffer dei dati.
+     */
+    public void addAll(ByteBuffer buffer) {
+        IntBuffer ints = buffer.asIntBuffer();
+        int read = ints.remaining();
+        // Il limite di contatori vale per l'intero buffer, non per il singolo blocco trasferito.
+        long expected = total + read;
+        if (scratch == null) scratch = new int[BUFFER_CHUNK];
+        while (ints.hasRemaining()) {
+            int n = Math.min(scratch.length, ints.remaining());
+            ints.get(scratch, 0, n);     // Trasferimento in blocco, più rapido di una lettura per valore.
+            addBlock(scratch, 0, n, expected);
+        }
+        buffer.position(buffer.position() + read * 4);
+    }
+
+    /**
+     * Aggiunge a questo accumulatore tutti i conteggi di un altro, che non viene modificato.
+     *
+     * @param other l'accumulatore da aggiungere.
+     * @throws IllegalStateException se l'unione porterebbe l'intervallo oltre il limite di contatori.
+     */
+    public void merge(CountingHistogram other) {
+        if (other.total == 0) return;
+        int lo = other.min;
+        int hi = other.max;
+        if (lo < base || (long) hi - base >= counts.length) {
+            ensureRange(lo, hi, total + other.total);
+        }
+        long[] src = other.counts;
+        for (int v = lo - other.base, last = hi - other.base, offset = other.base - base; v <= last; v++) {
+            counts[v + offset] += src[v];
+        }
+        if (total == 0) {
+            min = lo;
+            max = hi;
+        } else {
+            min = Math.min(min, lo);
+            max = Math.max(max, hi);
+        }
+        total += other.total;
+        modCount++;
+    }
+
+    /**
+     * Indica se {@code count} valori dell'intervallo {@code [lo, hi]} possono essere contati senza superare il limite
+     * di contatori, così che chi riceve dati di ampiezza ignota possa cambiare strategia prima di contarli.
+     *
+     * @param lo    il minimo dei valori da contare.
+     * @param hi    il massimo dei valori da contare, non minore di {@code lo}.
+     * @param count il numero di valori da contare.
+     * @return {@code true} se {@link #addAll(int[], int, int)} accetterebbe quei valori.
+     */
+    public boolean canAdd(int lo, int hi, long count) {
+        long limit = widthLimit(total + count);
+        if (total == 0) {
+            return (long) hi - lo + 1 <= limit;
+        }
+        // Stesso criterio di ensureRange: conta l'intervallo dei valori osservati, non la capacità attuale.
+        return (long) Math.max(max, hi) - Math.min(min, lo) + 1 <= limit;
+    }
+
+    /**
+     * Numero massimo di contatori per un istogramma di {@code count} valori: {@link #FREE_WIDTH}, oppure
+     * {@code COUNTING_SPAN_FACTOR} contatori per valore se sono di più, entro il tetto dell'accumulatore.
+     */
+    private long widthLimit(long count) {
+        if (count >= maxWidth / SortingLogic.COUNTING_SPAN_FACTOR) return maxWidth;
+        return Math.min(maxWidth, Math.max(FREE_WIDTH, SortingLogic.COUNTING_SPAN_FACTOR * count));
+    }
+
+    /**
+     * Amplia l'array dei contatori affinché includa l'intervallo {@code [lo, hi]}, entro il limite calcolato su
+     * {@code expected} valori contati.
+     */
+    private void ensureRange(int lo, int hi, long expected) {
+        long limit = widthLimit(expected);
+        if (total == 0) {
+            // Primo blocco: l'intervallo iniziale è centrato sui valori, senza superare i limiti di int.
+            long needed = (long) hi - lo + 1;
+            if (needed > limit) {
+                throw tooWide(lo, hi, limit);
+            }
+            long capacity = Math.min(limit, Math.max(needed, INITIAL_CAPACITY));
+            long start = Math.max(Integer.MIN_VALUE, (long) lo - (capacity - needed) / 2);
+            start = Math.min(start, (long) Integer.MAX_VALUE - capacity + 1);
+            base = (int) start;
+            counts = new long[(int) capacity];
+            return;
+        }
+        // Il nuovo intervallo si calcola sui valori osservati, non sulla capacità attuale: lo spazio libero rimasto dal
+        // lato opposto non si accumula di ampliamento in ampliamento.
+        long newMin = Math.min(min, lo);
+        long newMax = Math.max(max, hi);
+        long needed = newMax - newMin + 1;
+        if (needed > limit) {
+            throw tooWide(newMin, newMax, limit);
+        }
+        // Capacità doppia dell'intervallo, con il margine diviso tra i due lati: anche ampliamenti in direzioni
+        // alternate (come con i blocchi di uno stream parallelo) richiedono ogni volta una crescita di almeno metà
+        // dell'intervallo, per cui le copie restano ammortizzate.
+        long capacity = Math.min(limit, 2 * needed);
+        long newLo = newMin - (capacity - needed) / 2;
+        // L'intervallo deve restare all'interno dei valori rappresentabili da int.
+        newLo = Math.max(Integer.MIN_VALUE, Math.min(newLo, (long) Integer.MAX_VALUE - capacity + 1));
+        long[] grown = new long[(int) capacity];
+        System.arraycopy(counts, min - base, grown, (int) (min - newLo), max - min + 1);
+        counts = grown;
+        base = (int) newLo;
+    }
+
+    private static IllegalStateException tooWide(long lo, long hi, long limit) {
+        return new IllegalStateException("Intervallo dei valori troppo ampio per un conteggio diretto: " + lo + ".." + hi
+                + " (limite di " + limit + " contatori)");
+    }
+
+    /**
+     * @return il numero totale di valori contati.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return {@code true} se non è stato contato alcun valore.
+     */
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * @return il valore minimo osservato.
+     * @throws NoSuchElementException se l'accumulatore è vuoto.
+     */
+    public int min() {
+        if (total == 0) throw new NoSuchElementException("Istogramma vuoto");
+        return min;
+    }
+
+    /**
+     * @return il valore massimo osservato.
+     * @throws NoSuchElementException se l'accumulatore è vuoto.
+     */
+    public int max() {
+        if (total == 0) throw new NoSuchElementException("Istogramma vuoto");
+        return max;
+    }
+
+    /**
+     * @param value un valore qualsiasi.
+     * @return il numero di occorrenze contate per il valore.
+     */
+    public long count(int value) {
+        long index = (long) value - base;
+        return index < 0 || index >= counts.length ? 0 : counts[(int) index];
+    }
+
+    /**
+     * Consumatore delle sequenze di valori uguali prodotte da {@link #forEachRun(RunConsumer)}.
+     */
+    public interface RunConsumer {
+        /**
+         * @param value il valore.
+         * @param count il numero di occorrenze, sempre positivo.
+         */
+        void accept(int value, long count);
+    }
+
+    /**
+     * Visita i valori presenti in ordine crescente, ciascuno con il proprio numero di occorrenze: è la forma
+     * "run-length" dell'output ordinato.
+     *
+     * @param consumer il consumatore delle sequenze.
+     */
+    public void forEachRun(RunConsumer consumer) {
+        if (total == 0) return;
+        for (int i = min - base, last = max - base; i <= last; i++) {
+            long c = counts[i];
+            if (c != 0) {
+                consumer.accept(base + i, c);
+            }
+        }
+    }
+
+    /**
+     * Scrive i valori contati, in ordine crescente, in un array esistente.
+     *
+     * @param dest     l'array di destinazione.
+     * @param destFrom la posizione da cui iniziare a scrivere.
+     * @return la posizione successiva all'ultimo valore scritto.
+     * @throws IndexOutOfBoundsException se i valori non entrano nell'array a partire da {@code destFrom}.
+     */
+    public int writeSorted(int[] dest, int destFrom) {
+        if (destFrom < 0 || total > dest.length - destFrom) {
+            throw new IndexOutOfBoundsException("Spazio insufficiente per " + total + " valori a partire da " + destFrom);
+        }
+        if (total == 0) return destFrom;
+        int pos = destFrom;
+        for (int i = min - base, last = max - base; i <= last; i++) {
+            int c = (int) counts[i];
+            if (c != 0) {
+                Arrays.fill(dest, pos, pos + c, base + i);   // Riempimento in blocco della sequenza di valori uguali.
+                pos += c;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @return un nuovo array con i valori contati in ordine crescente.
+     * @throws IllegalStateException se i valori contati sono più di quanti un array possa contenerne.
+     */
+    public int[] toSortedArray() {
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Troppi valori per un array: " + total);
+        }
+        int[] sorted = new int[(int) total];
+        writeSorted(sorted, 0);
+        return sorted;
+    }
+
+    /**
+     * Restituisce un iteratore sui valori contati in ordine crescente, ripetuti secondo le rispettive occorrenze.
+     * L'iteratore non copia i dati: se l'accumulatore viene modificato durante l'iterazione, l'iteratore lancia
+     * {@link ConcurrentModificationException}.
+     *
+     * @return l'iteratore ordinato.
+     */
+    public PrimitiveIterator.OfInt sortedIterator() {
+        return new SortedIterator();
+    }
+
+    /**
+     * Azzera l'accumulatore mantenendo la capacità raggiunta.
+     */
+    public void clear() {
+        if (total > 0) {
+            Arrays.fill(counts, min - base, max - base + 1, 0);
+        }
+        total = 0;
+        modCount++;
+    }
+
+    /**
+     * Blocco di valori di uno stream (di una sua foglia, se parallelo), contato nell'accumulatore condiviso quando è
+     * pieno.
+     */
+    private static final class StreamBlock {
+        private final CountingHistogram target;
+        // Totale atteso al termine dello stream, o 0 se la sua dimensione non è stimabile.
+        private final long expected;
+        private final int[] values = new int[BUFFER_CHUNK];
+        private int size;
+
+        StreamBlock(CountingHistogram target, long expected) {
+            this.target = target;
+            this.expected = expected;
+        }
+
+        void add(int value) {
+            values[size++] = value;
+            if (size == values.length) flush();
+        }
+
+        void combine(StreamBlock other) {
+            other.flush();
+        }
+
+        void flush() {
+            if (size == 0) return;
+            synchronized (target) {
+                target.addBlock(values, 0, size, expected);
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Iteratore ordinato: scorre i contatori non nulli restituendo ciascun valore tante volte quante è stato contato.
+     */
+    private final class SortedIterator implements PrimitiveIterator.OfInt {
+        private final int expectedModCount = modCount;
+        // Indice del contatore corrente e occorrenze ancora da restituire per esso.
+        private int index;
+        private final int last;
+        private long remaining;
+
+        SortedIterator() {
+            if (total == 0) {
+                index = 0;
+                last = -1;
+            } else {
+                index = min - base - 1;
+                last = max - base;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForModification();
+            if (remaining > 0) return true;
+            while (index < last) {
+                long c = counts[++index];
+                if (c != 0) {
+                    remaining = c;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            remaining--;
+            return base + index;
+        }
+
+        private void checkForModification() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.counting_sort_visualizer;
 
+import javafx.animation.Animation;
 import javafx.animation.FadeTransition;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
@@ -9,7 +10,9 @@ import javafx.animation.ScaleTransition;
 import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.chart.BarChart;
@@ -17,17 +20,32 @@ import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Slider;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.scene.effect.Glow;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
 /**
  * La classe {@code CountingSortVisualizer} definisce un'applicazione JavaFX che visualizza il processo di ordinamento mediante
  * Counting Sort sia in forma grafica (con un BarChart animato) che testuale (con TextArea per l'inserimento e il risultato).
@@ -48,23 +66,63 @@ public class CountingSortVisualizer extends Application {
     private static final int MAX_VALUE = 20;
     // Tempo totale (in millisecondi) da distribuire sulle animazioni; questo parametro determina il delay inversamente proporzionale.
     private static final double TOTAL_ANIM_DURATION = 600.0;
+    // Numero massimo di elementi visualizzati con il BarChart (un nodo per barra); oltre si usa il grafico su Canvas.
+    private static final int BAR_CHART_LIMIT = 500;
+    // Numero massimo di elementi per cui viene registrata la traccia dell'ordinamento (riproduzione e scorrimento).
+    private static final int TRACE_LIMIT = 1_000_000;
+    // Intervallo (in millisecondi) di aggiornamento del pannello delle metriche.
+    private static final double METRICS_REFRESH_MS = 500.0;
 
     // Array di interi che contiene i dati attuali visualizzati nel BarChart.
     private int[] currentData;
     // Riferimento al componente grafico BarChart per rappresentare le barre dell'array.
     private BarChart<String, Number> barChart;
+    // Grafico disegnato su Canvas, usato al posto del BarChart per gli array con più di BAR_CHART_LIMIT elementi.
+    private CanvasBarChart canvasChart;
     // ComboBox per consentire la selezione del numero di barre; i valori possibili sono predefiniti.
     private ComboBox<Integer> comboBoxBars;
-    // Componenti per l'ordinamento testuale: una TextArea per l'input dell'utente e una per l'output.
+    // Distribuzione dei valori generati e seme del generatore (vuoto per un seme casuale).
+    private ComboBox<DataGenerator.Distribution> comboBoxDistribution;
+    private TextField seedField;
+    // Componenti per l'ordinamento testuale: una TextArea per l'input dell'utente e una vista virtualizzata per l'output.
     private TextArea inputTextArea;
-    private TextArea outputTextArea;
+    private SortedOutputView outputView;
+    // Etichetta che riporta quanti valori sono stati letti e quante righe sono state scartate.
+    private Label textStatusLabel;
+    // Executor su cui vengono eseguite generazione e ordinamento, per non bloccare il thread JavaFX.
+    private final ExecutorService backgroundExecutor = BackgroundExecutors.newExecutor("counting-sort-worker");
+    // Task in background attualmente in esecuzione (null se nessuno); un nuovo comando annulla quello precedente.
+    private Task<?> currentTask;
+    // Animazione di ordinamento in corso, interrotta se ne viene avviata un'altra.
+    private BarAnimationEngine currentAnimation;
+    // Riproduttore della traccia dell'ultimo ordinamento (null se la traccia non è disponibile).
+    private SortTracePlayer tracePlayer;
+    // Cursore per scorrere i passi della traccia e relativa etichetta descrittiva.
+    private Slider traceSlider;
+    private Label traceLabel;
+    // Buffer riutilizzato per ricostruire lo stato dell'output durante lo scorrimento della traccia.
+    private int[] traceBuffer = new int[0];
+    // Ultima barra evidenziata durante lo scorrimento, da riportare allo stato normale al passo successivo.
+    private int traceHighlighted = -1;
+    // Componenti che mostrano l'avanzamento del task in corso e ne consentono l'annullamento.
+    private ProgressBar progressBar;
+    private Button btnCancel;
+    private Label statusLabel;
+    // Pannello sovrapposto al grafico con le metriche di SortMetrics, aggiornato periodicamente mentre è visibile.
+    private Label metricsLabel;
+    private Timeline metricsTimeline;
 
     /**
      * Metodo principale, il punto di ingresso dell'applicazione JavaFX.
      *
-     * @param args parametri della linea di comando (non utilizzati in questa applicazione).
+     * @param args parametri della linea di comando: con {@code --batch} come primo argomento l'applicazione ordina un
+     *             file senza interfaccia grafica (vedi {@link BatchSortCli}), altrimenti non vengono utilizzati.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchSortCli.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch(args);  // Avvia l'applicazione JavaFX.
     }
 
@@ -87,9 +145,41 @@ public class CountingSortVisualizer extends Application {
         Label label = new Label("Numero di barre:");  // Etichetta descrittiva.
         comboBoxBars = new ComboBox<>();      // Inizializza il ComboBox.
         // Inserisce valori fissi utili per la scelta del numero di barre.
-        comboBoxBars.getItems().addAll(12, 20, 50, 100, 150, 200, 500);
+        // I valori oltre BAR_CHART_LIMIT vengono disegnati con il grafico su Canvas.
+        comboBoxBars.getItems().addAll(12, 20, 50, 100, 150, 200, 500, 1000, 10000, 100000, 1000000);
         comboBoxBars.setValue(12);            // Imposta il valore di default.
-        topBox.getChildren().addAll(label, comboBoxBars);  // Aggiunge etichetta e ComboBox al contenitore.
+        // Distribuzione e seme dei dati generati: a parità di seme, la generazione produce sempre lo stesso array.
+        comboBoxDistribution = new ComboBox<>();
+        comboBoxDistribution.getItems().addAll(DataGenerator.Distribution.values());
+        comboBoxDistribution.setValue(DataGenerator.Distribution.UNIFORM);
+        seedField = new TextField();
+        seedField.setPromptText("casuale");
+        seedField.setPrefColumnCount(8);
+        // Barra di avanzamento, pulsante di annullamento ed etichetta di stato per i task eseguiti in background.
+        progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(200);
+        progressBar.setVisible(false);       // Visibile soltanto mentre un task è in esecuzione.
+        btnCancel = new Button("Annulla");
+        btnCancel.setDisable(true);
+        btnCancel.setOnAction(e -> cancelCurrentTask());
+        statusLabel = new Label();
+        // Cursore dei passi: dopo un ordinamento consente di scorrere avanti e indietro le fasi di conteggio,
+        // somma prefissa e collocazione registrate nella traccia.
+        traceSlider = new Slider(0, 1, 0);
+        traceSlider.setPrefWidth(250);
+        traceSlider.setDisable(true);
+        traceSlider.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (traceSlider.isValueChanging() || traceSlider.isFocused()) {
+                showTraceStep(newValue.intValue());  // Soltanto gli spostamenti dell'utente riposizionano la traccia.
+            }
+        });
+        traceLabel = new Label();
+        // Casella che mostra o nasconde il pannello delle metriche sopra il grafico.
+        CheckBox metricsToggle = new CheckBox("Metriche");
+        metricsToggle.selectedProperty().addListener((obs, oldValue, newValue) -> showMetrics(newValue));
+        topBox.getChildren().addAll(label, comboBoxBars, new Label("Distribuzione:"), comboBoxDistribution,
+                new Label("Seme:"), seedField, progressBar, btnCancel, statusLabel,
+                new Label("Passo:"), traceSlider, traceLabel, metricsToggle);  // Aggiunge i controlli al contenitore.
         root.setTop(topBox);                  // Posiziona il contenitore in alto nella gerarchia del BorderPane.
 
         // ------ CENTRO: BarChart per la visualizzazione grafica dell'array ------
@@ -101,7 +191,23 @@ public class CountingSortVisualizer extends Application {
         barChart.setTitle("Bar Chart degli Elementi");  // Imposta il titolo del grafico.
         barChart.setAnimated(false);                // Disabilita le animazioni predefinite per consentire animazioni personalizzate.
         barChart.setStyle("-fx-background-color: white; -fx-font-size: 14;");  // Impostazione dello stile CSS inline.
-        root.setCenter(barChart);                   // Posiziona il BarChart nel centro del BorderPane.
+        // Il grafico su Canvas occupa la stessa posizione del BarChart: è visibile soltanto uno dei due alla volta.
+        canvasChart = new CanvasBarChart("Bar Chart degli Elementi");
+        canvasChart.setVisible(false);
+        // Pannello delle metriche, in alto a destra sopra i grafici; non intercetta gli eventi del mouse.
+        metricsLabel = new Label();
+        metricsLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.85); -fx-padding: 6; "
+                + "-fx-font-family: monospace; -fx-font-size: 11;");
+        metricsLabel.setMouseTransparent(true);
+        metricsLabel.setVisible(false);
+        StackPane.setAlignment(metricsLabel, Pos.TOP_RIGHT);
+        StackPane.setMargin(metricsLabel, new Insets(10));
+        metricsTimeline = new Timeline(new KeyFrame(Duration.millis(METRICS_REFRESH_MS),
+                e -> metricsLabel.setText(SortMetrics.global().summary())));
+        metricsTimeline.setCycleCount(Animation.INDEFINITE);
+        // Posiziona i grafici e il pannello delle metriche nel centro del BorderPane.
+        root.setCenter(new StackPane(barChart, canvasChart, metricsLabel));
+        SortMetrics.registerMBean();          // Metriche consultabili anche da JConsole o VisualVM.
 
         // ------ BOTTOM: Pannello contenente i pulsanti di comando e le TextArea per l'ordinamento testuale ------
         VBox bottomPanel = new VBox(10);            // Contenitore verticale con spaziatura di 10 pixel.
@@ -135,13 +241,15 @@ public class CountingSortVisualizer extends Application {
         inputTextArea.setPrefHeight(150);  // Imposta l'altezza preferita in modo da lasciare spazio al grafico.
         inputTextArea.setPrefWidth(550);   // Imposta anche la larghezza preferita.
         Label outputLabel = new Label("Valori Ordinati:");
-        outputTextArea = new TextArea();
-        outputTextArea.setEditable(false); // La TextArea di output è in sola lettura.
-        outputTextArea.setPrefHeight(150);
-        outputTextArea.setPrefWidth(550);
-        // Organizza le due TextArea in una disposizione affiancata (HBox) all'interno di VBox.
+        // L'output è una lista virtualizzata: vengono create soltanto le righe visibili, lette dall'array ordinato.
+        outputView = new SortedOutputView();
+        outputView.setPrefHeight(150);
+        outputView.setPrefWidth(550);
+        outputView.setExportHandler(this::exportSortedValues);
+        // Organizza l'area di input e la vista di output in una disposizione affiancata (HBox) all'interno di VBox.
+        textStatusLabel = new Label();
         HBox textAreasBox = new HBox(10, new VBox(5, inputLabel, inputTextArea),
-                                          new VBox(5, outputLabel, outputTextArea));
+                                          new VBox(5, outputLabel, outputView, textStatusLabel));
         textAreasBox.setPadding(new Insets(10));
         textAreasBox.setStyle("-fx-alignment: center;");  // Centra il contenuto.
 
@@ -151,56 +259,75 @@ public class CountingSortVisualizer extends Application {
 
         // ------ Configurazione delle azioni sui pulsanti del BarChart ------
 
-        // Pulsante per la generazione casuale dei numeri: utilizza il valore selezionato nel ComboBox
+        // Pulsante per la generazione casuale dei numeri: utilizza il numero di barre, la distribuzione e il seme scelti.
+        // La generazione avviene in background, a blocchi riempiti in parallelo, riportando l'avanzamento e
+        // controllando l'annullamento.
         btnGenerate.setOnAction(e -> {
             animateButtonClick(btnGenerate);  // Esegue l'animazione di click sul pulsante
             int numBars = comboBoxBars.getValue();  // Recupera il numero di barre desiderato dal ComboBox
-            currentData = SortingLogic.generateRandomNumbers(numBars, MAX_VALUE);  // Genera l'array casuale
-            displayData(currentData);  // Visualizza il nuovo array nel BarChart
-            Platform.runLater(this::animateGraphAppearance);  // Avvia l'animazione di apparizione del grafo
+            long seed = readSeed();
+            DataGenerator generator = new DataGenerator(seed, comboBoxDistribution.getValue(), MAX_VALUE);
+            Task<int[]> task = new Task<int[]>() {
+                @Override
+                protected int[] call() {
+                    return generator.generate(numBars, ForkJoinPool.commonPool(), (generated, total) -> {
+                        updateProgress(generated, total);
+                        return !isCancelled();
+                    });
+                }
+            };
+            runInBackground("Generazione in corso...", task, data -> {
+                statusLabel.setText("Seme: " + seed);  // Il seme usato consente di rigenerare gli stessi dati.
+                currentData = data;
+                displayData(currentData);  // Visualizza il nuovo array nel BarChart
+                Platform.runLater(this::animateGraphAppearance);  // Avvia l'animazione di apparizione del grafo
+            });
         });
 
-        // Pulsante per l'ordinamento del BarChart utilizzando il Counting Sort
+        // Pulsante per l'ordinamento del BarChart utilizzando il Counting Sort, eseguito in background.
         btnSort.setOnAction(e -> {
             animateButtonClick(btnSort);
-            int[] sortedData = SortingLogic.countingSort(currentData);  // Ordina l'array corrente
-            animateSort(sortedData);  // Visualizza il processo di ordinamento attraverso animazioni
+            int[] data = currentData;
+            Task<SortRun> task = new Task<SortRun>() {
+                @Override
+                protected SortRun call() {
+                    updateProgress(-1, 1);    // Il Counting Sort non ha passi intermedi osservabili: avanzamento indeterminato.
+                    return SortRun.of(data);  // Ordina l'array corrente registrandone la traccia
+                }
+            };
+            runInBackground("Ordinamento in corso...", task, this::animateSort);  // Visualizza il processo attraverso animazioni
         });
 
         // Pulsante per ordinare i valori testuali inseriti dall'utente.
-        // In seguito all'ordinamento, i dati ordinati vengono visualizzati sia nella TextArea di output che nel BarChart,
+        // In seguito all'ordinamento, i dati ordinati vengono visualizzati sia nella vista di output che nel BarChart,
         // permettendo all'utente di assistere graficamente al processo.
         btnSortText.setOnAction(e -> {
             animateButtonClick(btnSortText);
-            // Lettura del contenuto dell'inputTextArea; ogni riga viene considerata un potenziale valore numerico.
+            // Il testo viene letto sul thread JavaFX (è un semplice riferimento), mentre la scansione avviene in background.
             String input = inputTextArea.getText();
-            String[] lines = input.split("\\R+");  // Divide il testo in righe utilizzando l'espressione regolare per le interruzioni di linea.
-            java.util.List<Integer> list = new java.util.ArrayList<>();
-            for (String line : lines) {
-                line = line.trim();  // Rimuove eventuali spazi iniziali e finali
-                if (!line.isEmpty()) {  // Considera solo righe non vuote
-                    try {
-                        list.add(Integer.parseInt(line));  // Converte la riga in intero e lo aggiunge alla lista
-                    } catch (NumberFormatException ex) {
-                        // Qualora una riga non rappresenti un valore numerico, essa viene ignorata
-                    }
+            Task<TextSortResult> task = new Task<TextSortResult>() {
+                @Override
+                protected TextSortResult call() {
+                    // Ogni riga viene considerata un potenziale valore numerico: il testo viene scandito direttamente in
+                    // un buffer di interi primitivi, senza espressioni regolari né boxing.
+                    IntTextParser.Result parsed = IntTextParser.parse(input);
+                    updateProgress(1, 2);
+                    if (isCancelled()) return null;
+                    SortRun run = SortRun.of(parsed.values());  // Ordina l'array ottenuto
+                    updateProgress(2, 2);
+                    return new TextSortResult(parsed, run);
                 }
-            }
-            int[] arr = new int[list.size()];  // Converte la lista in un array di interi
-            for (int i = 0; i < list.size(); i++) {
-                arr[i] = list.get(i);
-            }
-            int[] sortedArr = SortingLogic.countingSort(arr);  // Ordina l'array ottenuto
-            // Costruisce una stringa contenente i valori ordinati, uno per riga, per visualizzarli nella TextArea di output.
-            StringBuilder sb = new StringBuilder();
-            for (int num : sortedArr) {
-                sb.append(num).append("\n");
-            }
-            outputTextArea.setText(sb.toString());
-            // Inoltre, aggiorna il BarChart per riflettere il processo di ordinamento dei valori testuali.
-            currentData = arr;
-            displayData(currentData);
-            animateSort(sortedArr);
+            };
+            runInBackground("Ordinamento del testo in corso...", task, result -> {
+                int[] arr = result.parsed.values();
+                // Le righe che non rappresentano un valore numerico non vengono più ignorate in silenzio, ma conteggiate.
+                textStatusLabel.setText("Valori letti: " + arr.length + " - righe scartate: " + result.parsed.rejectedLines());
+                outputView.setValues(result.run.sorted);  // Visualizza i valori ordinati senza copiarli in un testo.
+                // Inoltre, aggiorna il BarChart per riflettere il processo di ordinamento dei valori testuali.
+                currentData = arr;
+                displayData(currentData);
+                animateSort(result.run);
+            });
         });
 
         // ------ Inizializza il BarChart all'avvio dell'applicazione ------
@@ -227,8 +354,24 @@ public class CountingSortVisualizer extends Application {
      * Questo metodo svuota l'attuale contenuto del BarChart per evitare duplicazioni, 
      * crea una nuova serie di dati e la popola iterativamente, infine la aggiunge al grafico.
      * Viene inoltre applicato un effetto hover su ciascuna barra per migliorare l'interattività.
+     * Gli array con più di {@link #BAR_CHART_LIMIT} elementi vengono invece disegnati sul grafico su Canvas, che non
+     * crea alcun nodo per elemento.
      */
     private void displayData(int[] data) {
+        if (currentAnimation != null) {
+            currentAnimation.stop();  // L'animazione in corso si riferisce alle barre che stanno per essere sostituite.
+        }
+        tracePlayer = null;           // Anche la traccia dell'ordinamento precedente non è più valida.
+        traceSlider.setDisable(true);
+        traceLabel.setText("");
+        boolean large = data.length > BAR_CHART_LIMIT;
+        barChart.setVisible(!large);
+        canvasChart.setVisible(large);
+        if (large) {
+            barChart.getData().clear();
+            canvasChart.setData(data.clone());  // Copia di lavoro: le animazioni la modificano senza toccare currentData.
+            return;
+        }
         barChart.getData().clear();  // Rimuove le serie di dati esistenti.
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Elementi");  // Imposta il nome della serie, che apparirà in legenda.
@@ -255,91 +398,286 @@ public class CountingSortVisualizer extends Application {
     }
 
     /**
-     * Anima l'intera sequenza di ordinamento del BarChart.
+     * Override del metodo stop: interrompe gli eventuali task ancora in esecuzione alla chiusura dell'applicazione.
+     */
+    @Override
+    public void stop() {
+        backgroundExecutor.shutdownNow();
+        metricsTimeline.stop();
+    }
+
+    /**
+     * Mostra o nasconde il pannello delle metriche, aggiornandolo periodicamente soltanto mentre è visibile.
+     *
+     * @param visible {@code true} per mostrare il pannello.
+     */
+    private void showMetrics(boolean visible) {
+        metricsLabel.setVisible(visible);
+        if (visible) {
+            metricsLabel.setText(SortMetrics.global().summary());
+            metricsTimeline.play();
+        } else {
+            metricsTimeline.stop();
+        }
+    }
+
+    /**
+     * Esegue un task in background, mostrandone l'avanzamento e consentendone l'annullamento.
+     *
+     * Un eventuale task precedente ancora in corso viene annullato: il suo risultato, anche se arrivasse in seguito,
+     * non verrebbe più pubblicato. Il risultato del nuovo task viene consegnato a {@code onSucceeded} sul thread JavaFX
+     * (il {@code Task} pubblica i cambi di stato tramite {@code Platform.runLater}).
+     *
+     * @param description il testo mostrato nell'etichetta di stato durante l'esecuzione.
+     * @param task        il task da eseguire.
+     * @param onSucceeded l'azione da eseguire sul thread JavaFX con il risultato del task.
+     * @param <T>         il tipo del risultato del task.
+     */
+    private <T> void runInBackground(String description, Task<T> task, Consumer<T> onSucceeded) {
+        cancelCurrentTask();
+        currentTask = task;
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressBar.setVisible(true);
+        btnCancel.setDisable(false);
+        statusLabel.setText(description);
+        task.setOnSucceeded(e -> {
+            if (currentTask != task) return;  // Il task è stato sostituito da uno più recente.
+            finishTask("");
+            onSucceeded.accept(task.getValue());
+        });
+        task.setOnCancelled(e -> {
+            if (currentTask == task) finishTask("Operazione annullata");
+        });
+        task.setOnFailed(e -> {
+            if (currentTask == task) finishTask("Errore: " + task.getException().getMessage());
+        });
+        backgroundExecutor.execute(task);
+    }
+
+    /**
+     * @return il seme indicato dall'utente: il numero inserito, un valore derivato dal testo se non è un numero, oppure
+     *         un seme casuale se il campo è vuoto.
+     */
+    private long readSeed() {
+        String text = seedField.getText().trim();
+        if (text.isEmpty()) {
+            return ThreadLocalRandom.current().nextLong();
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return text.hashCode();  // Anche un seme testuale produce dati riproducibili.
+        }
+    }
+
+    /**
+     * Annulla il task in background in corso, se presente.
+     */
+    private void cancelCurrentTask() {
+        if (currentTask != null && currentTask.isRunning()) {
+            currentTask.cancel(true);
+        }
+    }
+
+    /**
+     * Ripristina i controlli di avanzamento al termine di un task.
+     *
+     * @param message il messaggio da mostrare nell'etichetta di stato.
+     */
+    private void finishTask(String message) {
+        currentTask = null;
+        progressBar.progressProperty().unbind();
+        progressBar.setVisible(false);
+        btnCancel.setDisable(true);
+        statusLabel.setText(message);
+    }
+
+    /**
+     * Esporta su file i valori della vista di output, nella modalità in cui sono visualizzati. Il file viene scritto
+     * in background una riga alla volta, per cui né il thread JavaFX né la memoria risentono del numero di valori.
+     *
+     * @param file il file scelto dall'utente.
+     */
+    private void exportSortedValues(Path file) {
+        int[] values = outputView.getValues();
+        boolean runLength = outputView.isRunLength();
+        Task<Path> task = new Task<Path>() {
+            @Override
+            protected Path call() throws IOException {
+                SortedOutputView.export(values, runLength, file, (written, total) -> {
+                    updateProgress(written, total);
+                    return !isCancelled();
+                });
+                return file;
+            }
+        };
+        runInBackground("Esportazione in corso...", task,
+                exported -> statusLabel.setText("Valori esportati in " + exported.getFileName()));
+    }
+
+    /**
+     * Anima l'intera sequenza di ordinamento del grafico.
      *
      * Il processo si divide in due fasi:
      * 1. Fase preliminare ("lettura"): ogni barra viene evidenziata in sequenza mediante un effetto di scala e glow.
      * 2. Fase di aggiornamento: le barre vengono aggiornate in base ai nuovi valori ordinati,
      *    con effetti dinamici per evidenziare il cambiamento.
      *
-     * @param sortedData l'array ordinato da visualizzare.
+     * Quando è disponibile la traccia dell'esecuzione, le due fasi riproducono le operazioni reali del Counting Sort:
+     * la lettura segue gli incrementi dei contatori e l'aggiornamento parte da un output vuoto e colloca ogni elemento
+     * nella posizione effettivamente calcolata dalle somme prefisse. Se l'ordinamento è avvenuto con il radix sort,
+     * l'aggiornamento mostra una passata dopo l'altra, cifra per cifra. Senza traccia le barre vengono aggiornate da
+     * sinistra verso destra. Entrambe le fasi sono descritte come passi di un unico {@link BarAnimationEngine}, che le
+     * riproduce con un solo timer sia sul BarChart sia sul grafico su Canvas, accorpando i passi che cadono nello
+     * stesso fotogramma.
+     *
+     * @param run l'esito dell'ordinamento da visualizzare.
      */
-    private void animateSort(int[] sortedData) {
-        if (barChart.getData().isEmpty()) return;  // Se il BarChart è privo di dati, l'animazione non viene eseguita.
-        XYChart.Series<String, Number> series = barChart.getData().get(0);
-        int n = series.getData().size();
+    private void animateSort(SortRun run) {
+        int[] sortedData = run.sorted;
+        tracePlayer = run.player;
+        traceSlider.setDisable(tracePlayer == null);
+        traceSlider.setMax(tracePlayer == null ? 1 : tracePlayer.stepCount());
+        traceSlider.setValue(0);
+        traceLabel.setText("");
+        traceHighlighted = -1;
+
+        BarAnimationEngine.BarView view = currentView();
+        if (view == null) return;  // Se il grafico è privo di dati, l'animazione non viene eseguita.
+        int n = Math.min(view.barCount(), sortedData.length);
+        if (n == 0) return;
         // Calcola il delay base in modalità inversa rispetto al numero di barre per mantenere le animazioni fluide.
         double baseDelay = TOTAL_ANIM_DURATION / n;
 
-        // Fase 1: Animazione preliminare ("lettura")
-        Timeline preliminaryTimeline = new Timeline();
-        for (int i = 0; i < n; i++) {
-            XYChart.Data<String, Number> dataItem = series.getData().get(i);
-            KeyFrame keyFrame = new KeyFrame(Duration.millis((i + 1) * baseDelay), event -> {
-                Node barNode = dataItem.getNode();
-                if (barNode != null) {
-                    // Animazione di scala che evidenzia temporaneamente la barra.
-                    ScaleTransition st = new ScaleTransition(Duration.millis(200), barNode);
-                    st.setFromX(1.0);
-                    st.setFromY(1.0);
-                    st.setToX(1.15);
-                    st.setToY(1.15);
-                    st.setCycleCount(2);
-                    st.setAutoReverse(true);
-                    st.play();
-
-                    // Applicazione dell'effetto glow con una timeline che incrementa e poi decrementa il livello.
-                    Glow glow = new Glow(0);
-                    barNode.setEffect(glow);
-                    Timeline glowTimeline = new Timeline(
-                        new KeyFrame(Duration.ZERO, new KeyValue(glow.levelProperty(), 0)),
-                        new KeyFrame(Duration.millis(100), new KeyValue(glow.levelProperty(), 0.7)),
-                        new KeyFrame(Duration.millis(200), new KeyValue(glow.levelProperty(), 0))
-                    );
-                    glowTimeline.play();
-                }
-            });
-            preliminaryTimeline.getKeyFrames().add(keyFrame);
+        if (currentAnimation != null) {
+            currentAnimation.stop();            // Un'animazione precedente ancora in corso viene interrotta.
         }
-        
-        preliminaryTimeline.setOnFinished(e -> {
+        BarAnimationEngine engine = new BarAnimationEngine(view);
+        double phaseTwoStart = n * baseDelay;
+        if (tracePlayer != null && tracePlayer.trace().input().length == n) {
+            // Riproduzione della traccia: i passi vengono letti in ordine dal riproduttore, partendo dall'inizio.
+            int[] input = tracePlayer.trace().input();
+            tracePlayer.seek(0);
+            int reads = 0;
+            int placements = 0;
+            boolean outputCleared = false;
+            while (tracePlayer.next()) {
+                int type = tracePlayer.lastType();
+                if (type == SortTrace.INCREMENT) {
+                    // Fase 1: lettura dell'elemento e incremento del relativo contatore.
+                    engine.highlightAt(++reads * baseDelay, tracePlayer.lastOperand(), 0.7);
+                } else if (type == SortTrace.PLACE) {
+                    if (!outputCleared) {
+                        // Fase 2: l'output parte vuoto, poi ogni elemento raggiunge la propria posizione definitiva.
+                        for (int i = 0; i < n; i++) {
+                            engine.setValueAt(phaseTwoStart, i, 0);
+                        }
+                        outputCleared = true;
+                    }
+                    engine.setValueAt(phaseTwoStart + ++placements * baseDelay, tracePlayer.lastTarget(),
+                            input[tracePlayer.lastOperand()]);
+                }
+            }
+        } else if (run.radixPasses != null && sortedData.length == n) {
+            // Radix sort: dopo la lettura iniziale, ogni passata riscrive le barre nell'ordine della cifra corrente.
+            for (int i = 0; i < n; i++) {
+                engine.highlightAt((i + 1) * baseDelay, i, 0.7);
+            }
+            for (int p = 0; p < run.radixPasses.length; p++) {
+                int[] pass = run.radixPasses[p];
+                double passStart = phaseTwoStart + p * n * baseDelay;
+                for (int i = 0; i < n; i++) {
+                    engine.setValueAt(passStart + (i + 1) * baseDelay, i, pass[i]);
+                }
+            }
+            traceLabel.setText("Radix sort LSD: " + run.radixPasses.length + " passate su cifre di "
+                    + RadixSort.INT_DIGIT_BITS + " bit");
+        } else {
+            // Fase 1: Animazione preliminare ("lettura").
+            for (int i = 0; i < n; i++) {
+                engine.highlightAt((i + 1) * baseDelay, i, 0.7);
+            }
             // Fase 2: Aggiornamento progressivo delle barre con i nuovi valori ordinati.
-            Timeline sortingTimeline = new Timeline();
             for (int i = 0; i < n; i++) {
-                int index = i;
-                KeyFrame keyFrame = new KeyFrame(Duration.millis((i + 1) * baseDelay), event -> {
-                    // Aggiorna il valore della barra corrispondente con il nuovo valore ordinato.
-                    XYChart.Data<String, Number> dataItem = series.getData().get(index);
-                    dataItem.setYValue(sortedData[index]);
-                    Node barNode = dataItem.getNode();
-                    if (barNode != null) {
-                        // Effettua una transizione di scala per evidenziare il cambiamento.
-                        ScaleTransition st = new ScaleTransition(Duration.millis(250), barNode);
-                        st.setFromX(1.0);
-                        st.setFromY(1.0);
-                        st.setToX(1.3);
-                        st.setToY(1.3);
-                        st.setCycleCount(2);
-                        st.setAutoReverse(true);
-                        st.play();
-
-                        // Applica un effetto glow per accentuare visivamente il cambiamento.
-                        Glow glow = new Glow(0);
-                        barNode.setEffect(glow);
-                        Timeline glowTimeline = new Timeline(
-                            new KeyFrame(Duration.ZERO, new KeyValue(glow.levelProperty(), 0)),
-                            new KeyFrame(Duration.millis(125), new KeyValue(glow.levelProperty(), 1.0)),
-                            new KeyFrame(Duration.millis(250), new KeyValue(glow.levelProperty(), 0))
-                        );
-                        glowTimeline.play();
-                    }
-                });
-                sortingTimeline.getKeyFrames().add(keyFrame);
+                engine.setValueAt(phaseTwoStart + (i + 1) * baseDelay, i, sortedData[i]);
+            }
+        }
+        engine.setOnFinished(() -> {
+            currentData = sortedData;
+            if (tracePlayer != null) {
+                traceSlider.setValue(tracePlayer.stepCount());  // Al termine il cursore indica l'ultimo passo.
             }
-            sortingTimeline.setOnFinished(event -> currentData = sortedData);
-            sortingTimeline.play();
         });
-        preliminaryTimeline.play();
+        currentAnimation = engine;
+        engine.start();
+    }
+
+    /**
+     * @return la vista delle barre attualmente visibile, oppure {@code null} se il BarChart è privo di dati.
+     */
+    private BarAnimationEngine.BarView currentView() {
+        if (canvasChart.isVisible()) {
+            return canvasChart;
+        }
+        if (barChart.getData().isEmpty()) return null;
+        return new XYChartBarView(barChart.getData().get(0));
+    }
+
+    /**
+     * Mostra lo stato dell'algoritmo dopo il passo indicato della traccia: durante le fasi di conteggio e di somma
+     * prefissa il grafico mostra l'input, evidenziando l'elemento letto; durante la collocazione mostra l'output
+     * parziale, con le posizioni ancora vuote a zero e l'ultima posizione scritta evidenziata.
+     *
+     * @param step il passo da visualizzare.
+     */
+    private void showTraceStep(int step) {
+        if (tracePlayer == null) return;
+        if (currentAnimation != null) {
+            currentAnimation.stop();            // Lo scorrimento manuale sostituisce la riproduzione automatica.
+        }
+        BarAnimationEngine.BarView view = currentView();
+        int[] input = tracePlayer.trace().input();
+        if (view == null || view.barCount() != input.length) return;
+        tracePlayer.seek(step);
+
+        int n = input.length;
+        int[] shown;
+        if (tracePlayer.isPlacing()) {
+            if (traceBuffer.length < n) traceBuffer = new int[n];
+            tracePlayer.fillOutput(traceBuffer, 0);
+            shown = traceBuffer;
+        } else {
+            shown = input;
+        }
+        for (int i = 0; i < n; i++) {
+            view.setBarValue(i, shown[i]);
+        }
+        if (traceHighlighted >= 0) {
+            view.setBarHighlight(traceHighlighted, 0);
+            traceHighlighted = -1;
+        }
+        String description;
+        switch (tracePlayer.lastType()) {
+            case SortTrace.INCREMENT:
+                traceHighlighted = tracePlayer.lastOperand();
+                description = "conteggio di " + input[traceHighlighted];
+                break;
+            case SortTrace.PREFIX:
+                description = "somma prefissa del valore " + (tracePlayer.lastTarget() + tracePlayer.trace().min());
+                break;
+            case SortTrace.PLACE:
+                traceHighlighted = tracePlayer.lastTarget();
+                description = "collocazione di " + input[tracePlayer.lastOperand()] + " in posizione " + traceHighlighted;
+                break;
+            default:
+                description = "inizio";
+                break;
+        }
+        if (traceHighlighted >= 0) {
+            view.setBarHighlight(traceHighlighted, 1);
+        }
+        view.commitFrame();
+        traceLabel.setText(tracePlayer.position() + "/" + tracePlayer.stepCount() + " - " + description);
     }
 
     /**
@@ -350,6 +688,14 @@ public class CountingSortVisualizer extends Application {
      * Il delay per ogni barra è inversamente proporzionale al numero di barre, per garantire una transizione fluida.
      */
     private void animateGraphAppearance() {
+        if (canvasChart.isVisible()) {
+            // Sul grafico su Canvas non ci sono nodi per barra: si anima la comparsa dell'intero grafico.
+            FadeTransition fade = new FadeTransition(Duration.millis(500), canvasChart);
+            fade.setFromValue(0);
+            fade.setToValue(1);
+            fade.play();
+            return;
+        }
         if (barChart.getData().isEmpty()) return;
         XYChart.Series<String, Number> series = barChart.getData().get(0);
         int n = series.getData().size();
@@ -490,4 +836,54 @@ public class CountingSortVisualizer extends Application {
         exitTransition.setOnFinished(ev -> Platform.exit());
         exitTransition.play();  // Avvia l'animazione di chiusura.
     }
-}
\ No newline at end of file
+
+    /**
+     * Risultato dell'ordinamento dei valori testuali, prodotto in background e pubblicato sul thread JavaFX.
+     */
+    private static final class TextSortResult {
+        private final IntTextParser.Result parsed;
+        private final SortRun run;
+
+        TextSortResult(IntTextParser.Result parsed, SortRun run) {
+            this.parsed = parsed;
+            this.run = run;
+        }
+    }
+
+    /**
+     * Esito di un ordinamento eseguito in background: l'array ordinato e, quando disponibile, il riproduttore della
+     * traccia registrata durante l'esecuzione.
+     */
+    private static final class SortRun {
+        private final int[] sorted;
+        private final SortTracePlayer player;
+        // Stato dell'array dopo ogni passata del radix sort (null se l'ordinamento è avvenuto con il Counting Sort).
+        private final int[][] radixPasses;
+
+        private SortRun(int[] sorted, SortTracePlayer player, int[][] radixPasses) {
+            this.sorted = sorted;
+            this.player = player;
+            this.radixPasses = radixPasses;
+        }
+
+        /**
+         * Ordina l'array registrando la traccia del Counting Sort. Se l'intervallo dei valori è troppo ampio per un
+         * conteggio diretto si usa il radix sort, conservando lo stato dell'array dopo ogni passata; per gli input
+         * troppo grandi si ordina senza registrare nulla.
+         */
+        static SortRun of(int[] data) {
+            if (data.length <= TRACE_LIMIT) {
+                if (SortTrace.canRecord(data)) {
+                    SortTrace trace = SortTrace.record(data);
+                    return new SortRun(trace.sorted(), new SortTracePlayer(trace), null);
+                }
+                // Intervallo troppo ampio: ordinamento cifra per cifra con il radix sort.
+                List<int[]> passes = new ArrayList<>();
+                int[] sorted = RadixSort.sort(data,
+                        (digit, shift, state, from, to) -> passes.add(Arrays.copyOfRange(state, from, to)));
+                return new SortRun(sorted, null, passes.toArray(new int[0][]));
+            }
+            return new SortRun(SortingLogic.countingSort(data), null, null);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+
+/**
+ * Ordinatore riutilizzabile basato sul Counting Sort, pensato per chi deve ordinare moltissimi piccoli lotti.
+ *
+ * A differenza di {@link SortingLogic#countingSort(int[])}, che alloca a ogni chiamata un nuovo array di conteggio e un
+ * nuovo array di uscita, un {@code CountingSorter} conserva il proprio istogramma (e, per l'ordinamento con payload,
+ * i buffer di appoggio) tra una chiamata e l'altra. L'istogramma viene azzerato soltanto nella porzione effettivamente
+ * usata, per cui a regime il percorso di ordinamento non effettua alcuna allocazione.
+ *
+ * Sono disponibili:
+ * - l'ordinamento in place di un array (o di una sua porzione);
+ * - l'ordinamento verso un array di destinazione fornito dal chiamante;
+ * - l'ordinamento stabile di chiavi {@code int} accompagnate da un array parallelo di payload, utile per ordinare record
+ *   per chiave senza ricorrere a oggetti boxed.
+ *
+ * Un'istanza non è thread-safe: ogni thread deve utilizzare il proprio {@code CountingSorter}.
+ */
+public final class CountingSorter {
+
+    /** Ampiezza massima predefinita dell'istogramma riutilizzabile (1M contatori, ossia 4 MiB). */
+    public static final int DEFAULT_MAX_SPAN = 1 << 20;
+    // Numero di contatori usati da ciascuna passata del radix sort di ripiego (cifre di 8 bit).
+    private static final int RADIX = 256;
+
+    // Ampiezza massima dell'intervallo [min, max] gestita con il conteggio diretto.
+    private final int maxSpan;
+    // Istogramma riutilizzato tra le chiamate; tra una chiamata e l'altra è sempre interamente azzerato.
+    private int[] count = new int[RADIX];
+    // Buffer di appoggio per l'ordinamento in place di chiavi e payload, cresciuti solo quando necessario.
+    private int[] keyScratch = new int[0];
+    private int[] payloadScratch = new int[0];
+
+    /**
+     * Crea un ordinatore con l'ampiezza massima predefinita {@link #DEFAULT_MAX_SPAN}.
+     */
+    public CountingSorter() {
+        this(DEFAULT_MAX_SPAN);
+    }
+
+    /**
+     * Crea un ordinatore che utilizza il conteggio diretto fino all'ampiezza indicata.
+     *
+     * @param maxSpan il numero massimo di contatori che l'istogramma può raggiungere; oltre tale ampiezza, o con un
+     *                intervallo sproporzionato rispetto al numero di elementi, si ordina con un radix sort sui buffer
+     *                già disponibili.
+     */
+    public CountingSorter(int maxSpan) {
+        if (maxSpan < RADIX) {
+            throw new IllegalArgumentException("maxSpan deve essere almeno " + RADIX + ": " + maxSpan);
+        }
+        this.maxSpan = maxSpan;
+    }
+
+    /**
+     * Ordina in place l'intero array.
+     *
+     * @param a l'array da ordinare.
+     */
+    public void sort(int[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * Ordina in place la porzione {@code [from, to)} dell'array.
+     *
+     * @param a    l'array da ordinare.
+     * @param from indice iniziale (incluso).
+     * @param to   indice finale (escluso).
+     */
+    public void sort(int[] a, int from, int to) {
+        sort(a, from, to, a, from);
+    }
+
+    /**
+     * Ordina {@code src} scrivendo il risultato in {@code dst}, senza modificare l'array di origine.
+     *
+     * @param src l'array da ordinare.
+     * @param dst l'array di destinazione, di lunghezza almeno pari a {@code src.length}; può coincidere con {@code src}.
+     */
+    public void sort(int[] src, int[] dst) {
+        sort(src, 0, src.length, dst, 0);
+    }
+
+    /**
+     * Ordina la porzione {@code [from, to)} di {@code src} scrivendo il risultato in {@code dst} a partire da
+     * {@code dstFrom}. Le due regioni possono coincidere (ordinamento in place), ma non sovrapporsi parzialmente.
+     *
+     * @param src     l'array da ordinare.
+     * @param from    indice iniziale (incluso) in {@code src}.
+     * @param to      indice finale (escluso) in {@code src}.
+     * @param dst     l'array di destinazione.
+     * @param dstFrom la posizione di {@code dst} in cui scrivere il primo elemento ordinato.
+     */
+    public void sort(int[] src, int from, int to, int[] dst, int dstFrom) {
+        checkRange(src.length, from, to);
+        checkRange(dst.length, dstFrom, dstFrom + (to - from));
+        if (to - from < 2) {
+            if (to > from) dst[dstFrom] = src[from];
+            return;
+        }
+        long minMax = ScanKernels.minMax(src, from, to);
+        int min = ScanKernels.min(minMax);
+        int max = ScanKernels.max(minMax);
+        long span = (long) max - min + 1;
+        if (!dense(span, to - from)) {
+            // Intervallo troppo ampio per l'istogramma: radix sort in place, con il buffer interno come appoggio.
+            if (src != dst || from != dstFrom) {
+                System.arraycopy(src, from, dst, dstFrom, to - from);
+            }
+            if (keyScratch.length < to - from) {
+                keyScratch = new int[to - from];
+                payloadScratch = new int[to - from];
+            }
+            RadixSort.sort(dst, dstFrom, dstFrom + (to - from), keyScratch);
+            return;
+        }
+        int width = (int) span;
+        int[] c = histogram(width);
+        for (int i = from; i < to; i++) {
+            c[src[i] - min]++;
+        }
+        // Ricostruzione in blocco, poi azzeramento della sola porzione usata per la chiamata successiva.
+        SortingLogic.fillRuns(c, width, min, dst, dstFrom);
+        Arrays.fill(c, 0, width, 0);
+    }
+
+    /**
+     * Ordina in modo stabile le chiavi e, di conseguenza, il payload associato: l'elemento {@code payload[i]} segue la
+     * chiave {@code keys[i]} e, a parità di chiave, l'ordine relativo originale viene preservato.
+     *
+     * @param keys    le chiavi da ordinare (modificate in place).
+     * @param payload i dati associati alle chiavi, della stessa lunghezza di {@code keys} (modificati in place).
+     */
+    public void sortByKey(int[] keys, int[] payload) {
+        int n = keys.length;
+        if (payload.length != n) {
+            throw new IllegalArgumentException("keys e payload devono avere la stessa lunghezza: " + n + " != " + payload.length);
+        }
+        if (keyScratch.length < n) {
+            keyScratch = new int[n];
+            payloadScratch = new int[n];
+        }
+        System.arraycopy(keys, 0, keyScratch, 0, n);
+        System.arraycopy(payload, 0, payloadScratch, 0, n);
+        sortByKey(keyScratch, payloadScratch, 0, n, keys, payload);
+    }
+
+    /**
+     * Ordina in modo stabile chiavi e payload scrivendo il risultato negli array di destinazione forniti dal chiamante.
+     * Gli array di origine non vengono modificati.
+     *
+     * @param keys       le chiavi da ordinare.
+     * @param payload    i dati associati alle chiavi, della stessa lunghezza di {@code keys}.
+     * @param keysOut    destinazione delle chiavi ordinate, di lunghezza almeno pari a {@code keys.length}.
+     * @param payloadOut destinazione del payload riordinato, di lunghezza almeno pari a {@code keys.length}.
+     */
+    public void sortByKey(int[] keys, int[] payload, int[] keysOut, int[] payloadOut) {
+        int n = keys.length;
+        if (payload.length != n) {
+            throw new IllegalArgumentException("keys e payload devono avere la stessa lunghezza: " + n + " != " + payload.length);
+        }
+        if (keysOut == keys || payloadOut == payload) {
+            throw new IllegalArgumentException("le destinazioni devono essere distinte dagli array di origine");
+        }
+        checkRange(keysOut.length, 0, n);
+        checkRange(payloadOut.length, 0, n);
+        sortByKey(keys, payload, 0, n, keysOut, payloadOut);
+    }
+
+    /**
+     * Nucleo dell'ordinamento stabile con payload: conteggio, somme prefisse e collocazione in avanti.
+     */
+    private void sortByKey(int[] keys, int[] payload, int from, int to, int[] keysOut, int[] payloadOut) {
+        int n = to - from;
+        if (n == 0) return;
+        long minMax = ScanKernels.minMax(keys, from, to);
+        int min = ScanKernels.min(minMax);
+        int max = ScanKernels.max(minMax);
+        long span = (long) max - min + 1;
+        if (!dense(span, n)) {
+            radixSortByKey(keys, payload, n, keysOut, payloadOut);
+            return;
+        }
+        int width = (int) span;
+        int[] c = histogram(width);
+        for (int i = from; i < to; i++) {
+            c[keys[i] - min]++;
+        }
+        // Somme prefisse: c[k] diventa la prima posizione di uscita della chiave k + min.
+        int sum = 0;
+        for (int k = 0; k < width; k++) {
+            int cnt = c[k];
+            c[k] = sum;
+            sum += cnt;
+        }
+        // Collocazione in avanti: scorrendo l'input nell'ordine originale si preserva la stabilità.
+        for (int i = from; i < to; i++) {
+            int pos = c[keys[i] - min]++;
+            keysOut[pos] = keys[i];
+            payloadOut[pos] = payload[i];
+        }
+        Arrays.fill(c, 0, width, 0);    // Ripristina l'istogramma azzerato per la chiamata successiva.
+    }
+
+    /**
+     * Indica se {@code n} elementi con un intervallo di {@code span} valori vanno contati nell'istogramma: l'intervallo
+     * deve restare entro {@link #maxSpan} e, come in {@link SortingLogic#countingSort(int[])}, entro
+     * {@link SortingLogic#denseSpanLimit(int)}, così che pochi valori molto distanti non facciano scorrere e azzerare
+     * milioni di contatori a ogni chiamata.
+     */
+    private boolean dense(long span, int n) {
+        return span <= Math.min(maxSpan, SortingLogic.denseSpanLimit(n));
+    }
+
+    /**
+     * Radix sort LSD stabile su chiavi e payload, usato quando l'intervallo delle chiavi non è adatto all'istogramma
+     * (vedi {@link #dense(long, int)}).
+     * Le passate alternano i dati tra gli array di destinazione e i buffer interni; al termine il risultato si trova
+     * sempre negli array di destinazione.
+     */
+    private void radixSortByKey(int[] keys, int[] payload, int n, int[] keysOut, int[] payloadOut) {
+        int[] c = histogram(RADIX);
+        int[] srcKeys = keys;
+        int[] srcPayload = payload;
+        boolean inOutput = false;       // Indica se i dati correnti si trovano negli array di destinazione.
+        for (int shift = 0; shift < 32; shift += 8) {
+            int flip = shift == 24 ? 0x80 : 0;   // Sulla cifra più significativa si inverte il bit di segno.
+            for (int i = 0; i < n; i++) {
+                c[((srcKeys[i] >>> shift) & 0xFF) ^ flip]++;
+            }
+            if (c[((srcKeys[0] >>> shift) & 0xFF) ^ flip] == n) {
+                Arrays.fill(c, 0);      // Cifra identica per tutte le chiavi: passata saltata.
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int cnt = c[d];
+                c[d] = sum;
+                sum += cnt;
+            }
+            int[] dstKeys;
+            int[] dstPayload;
+            if (inOutput) {
+                if (keyScratch.length < n) {
+                    keyScratch = new int[n];
+                    payloadScratch = new int[n];
+                }
+                dstKeys = keyScratch;
+                dstPayload = payloadScratch;
+            } else {
+                dstKeys = keysOut;
+                dstPayload = payloadOut;
+            }
+            for (int i = 0; i < n; i++) {
+                int pos = c[((srcKeys[i] >>> shift) & 0xFF) ^ flip]++;
+                dstKeys[pos] = srcKeys[i];
+                dstPayload[pos] = srcPayload[i];
+            }
+            Arrays.fill(c, 0);
+            srcKeys = dstKeys;
+            srcPayload = dstPayload;
+            inOutput = !inOutput;
+        }
+        if (!inOutput) {
+            // Numero pari di passate (o nessuna): i dati vanno copiati nelle destinazioni.
+            System.arraycopy(srcKeys, 0, keysOut, 0, n);
+            System.arraycopy(srcPayload, 0, payloadOut, 0, n);
+        }
+    }
+
+    /**
+     * Restituisce l'istogramma riutilizzabile, ingrandendolo se necessario; le prime {@code width} posizioni sono nulle.
+     */
+    private int[] histogram(int width) {
+        if (count.length < width) {
+            count = new int[Math.max(width, Math.min(maxSpan, count.length * 2))];
+        }
+        return count;
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || from > to || to > length) {
+            throw new ArrayIndexOutOfBoundsException("intervallo [" + from + ", " + to + ") non valido per lunghezza " + length);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.counting_sort_visualizer;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Generatore di dati di prova veloce e riproducibile, basato su {@link SplittableRandom}.
+ *
+ * A differenza di {@link java.util.Random}, che aggiorna il proprio seme con un'operazione atomica a ogni estrazione,
+ * {@code SplittableRandom} non ha stato condiviso e può essere suddiviso in generatori indipendenti. L'array viene
+ * quindi diviso in blocchi di {@link #CHUNK_SIZE} elementi, ciascuno con il proprio generatore ottenuto dal seme con
+ * una sequenza fissa di suddivisioni: il risultato dipende soltanto da seme, dimensione, valore massimo e
+ * distribuzione, e non dal numero di thread che riempiono i blocchi in parallelo.
+ *
+ * Tutti i valori generati sono compresi tra 0 e {@code maxValue} (incluso), come in
+ * {@link SortingLogic#generateRandomNumbers(int, int)}.
+ */
+public final class DataGenerator {
+
+    /** Numero di elementi generati da ciascun generatore indipendente. */
+    public static final int CHUNK_SIZE = 1 << 16;
+    // Numero di valori distinti della distribuzione FEW_DISTINCT (se l'intervallo ne contiene abbastanza).
+    static final int FEW_DISTINCT_KEYS = 8;
+
+    /**
+     * Distribuzioni dei valori generati.
+     */
+    public enum Distribution {
+        /** Valori uniformi in {@code [0, maxValue]}. */
+        UNIFORM("Uniforme"),
+        /** Valori sbilanciati verso le chiavi piccole (approssimazione continua di una Zipf con esponente 1). */
+        ZIPF("Zipf"),
+        /** Valori normali centrati a metà intervallo, con deviazione standard pari a 1/6 dell'intervallo. */
+        NORMAL("Normale"),
+        /** Valori uniformi in ordine crescente. */
+        SORTED("Ordinata"),
+        /** Valori uniformi in ordine decrescente. */
+        REVERSE("Inversa"),
+        /** Pochi valori distinti, scelti a caso nell'intervallo, ripetuti uniformemente. */
+        FEW_DISTINCT("Pochi distinti");
+
+        private final String label;
+
+        Distribution(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Osservatore dell'avanzamento della generazione, che può anche interromperla.
+     */
+    public interface ProgressListener {
+        /**
+         * Invocato dopo ogni blocco generato, anche da thread diversi.
+         *
+         * @param generated il numero di elementi generati finora.
+         * @param total     il numero totale di elementi.
+         * @return {@code false} per interrompere la generazione.
+         */
+        boolean onProgress(long generated, long total);
+    }
+
+    private final long seed;
+    private final Distribution distribution;
+    private final int maxValue;
+
+    /**
+     * Crea un generatore riproducibile.
+     *
+     * @param seed         il seme: a parità di parametri, lo stesso seme produce sempre gli stessi dati.
+     * @param distribution la distribuzione dei valori.
+     * @param maxValue     il valore massimo generabile (incluso), non negativo.
+     */
+    public DataGenerator(long seed, Distribution distribution, int maxValue) {
+        if (maxValue < 0) {
+            throw new IllegalArgumentException("maxValue non può essere negativo: " + maxValue);
+        }
+        this.seed = seed;
+        this.distribution = distribution;
+        this.maxValue = maxValue;
+    }
+
+    /**
+     * Genera l'array sul thread chiamante.
+     *
+     * @param count il numero di elementi.
+     * @return l'array generato.
+     */
+    public int[] generate(int count) {
+        return generate(count, null, null);
+    }
+
+    /**
+     * Genera l'array riempiendo i blocchi in parallelo sul pool indicato. Il risultato è identico a quello di
+     * {@link #generate(int)} con gli stessi parametri.
+     *
+     * @param count    il numero di elementi.
+     * @param pool     il pool su cui generare i blocchi, oppure {@code null} per generarli sul thread chiamante.
+     * @param listener l'osservatore dell'avanzamento, oppure {@code null}.
+     * @return l'array generato.
+     * @throws CancellationException se l'osservatore ha interrotto la generazione.
+     */
+    public int[] generate(int count, ForkJoinPool pool, ProgressListener listener) {
+        int[] data = new int[count];
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // Sequenza fissa di suddivisioni: il generatore del blocco c non dipende da quale thread lo userà.
+        SplittableRandom root = new SplittableRandom(seed);
+        int[] keys = distribution == Distribution.FEW_DISTINCT ? pickKeys(root) : null;
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            randoms[c] = root.split();
+        }
+
+        AtomicLong generated = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        IntConsumer fillChunk = c -> {
+            if (cancelled.get()) return;
+            int from = c * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, count);
+            fill(data, from, to, randoms[c], keys);
+            long done = generated.addAndGet(to - from);
+            if (listener != null && !listener.onProgress(done, count)) {
+                cancelled.set(true);
+            }
+        };
+        if (pool == null || chunks < 2) {
+            for (int c = 0; c < chunks; c++) {
+                fillChunk.accept(c);
+            }
+        } else {
+            ParallelCountingSort.run(pool, chunks, fillChunk);
+        }
+        if (cancelled.get()) {
+            throw new CancellationException("Generazione interrotta");
+        }
+
+        // Le distribuzioni ordinate vengono ottenute ordinando valori uniformi, con il Counting Sort stesso. L'ordinamento
+        // fa parte della generazione e non va registrato tra quelli dell'utente nelle metriche.
+        if (distribution == Distribution.SORTED || distribution == Distribution.REVERSE) {
+            int[] sorted = SortMetrics.withoutRecording(() -> pool == null ? SortingLogic.countingSort(data)
+                    : SortingLogic.parallelCountingSort(data, pool));
+            if (distribution == Distribution.REVERSE) {
+                for (int i = 0, j = count - 1; i < j; i++, j--) {
+                    int tmp = sorted[i];
+                    sorted[i] = sorted[j];
+                    sorted[j] = tmp;
+                }
+            }
+            return sorted;
+        }
+        return data;
+    }
+
+    /**
+     * Estrae le chiavi della distribuzione FEW_DISTINCT, distinte se l'intervallo lo consente.
+     */
+    private int[] pickKeys(SplittableRandom random) {
+        int k = (int) Math.min(FEW_DISTINCT_KEYS, (long) maxValue + 1);
+        int[] keys = new int[k];
+        for (int i = 0; i < k; i++) {
+            int key;
+            boolean duplicate;
+            do {
+                key = uniform(random);
+                duplicate = false;
+                for (int j = 0; j < i; j++) {
+                    duplicate |= keys[j] == key;
+                }
+            } while (duplicate);
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Riempie {@code data[from..to)} con il generatore del blocco.
+     */
+    private void fill(int[] data, int from, int to, SplittableRandom random, int[] keys) {
+        switch (distribution) {
+            case UNIFORM:
+            case SORTED:
+            case REVERSE:
+                for (int i = from; i < to; i++) {
+                    data[i] = uniform(random);
+                }
+                break;
+            case ZIPF:
+                // Inversione della distribuzione continua p(x) ~ 1/x su [1, maxValue + 2): la chiave 0 è la più frequente.
+                double logSpan = Math.log(maxValue + 2.0);
+                for (int i = from; i < to; i++) {
+                    data[i] = (int) Math.min(maxValue, (long) (Math.exp(random.nextDouble() * logSpan) - 1.0));
+                }
+                break;
+            case NORMAL:
+                double mean = maxValue / 2.0;
+                double deviation = Math.max(maxValue / 6.0, 1e-9);
+                for (int i = from; i < to; i++) {
+                    data[i] = (int) Math.max(0, Math.min(maxValue, Math.round(mean + gaussian(random) * deviation)));
+                }
+                break;
+            case FEW_DISTINCT:
+                for (int i = from; i < to; i++) {
+                    data[i] = keys[random.nextInt(keys.length)];
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Distribuzione non gestita: " + distribution);
+        }
+    }
+
+    private int uniform(SplittableRandom random) {
+        // nextInt(maxValue + 1) traboccherebbe con maxValue = Integer.MAX_VALUE.
+        return maxValue == Integer.MAX_VALUE ? random.nextInt() & Integer.MAX_VALUE : random.nextInt(maxValue + 1);
+    }
+
+    /**
+     * Estrae un valore normale standard con il metodo polare di Marsaglia ({@code SplittableRandom} non offre
+     * {@code nextGaussian} su Java 8).
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u;
+        double v;
+        double s;
+        do {
+            u = random.nextDouble() * 2 - 1;
+            v = random.nextDouble() * 2 - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+}
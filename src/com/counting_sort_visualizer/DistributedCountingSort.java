@@ -0,0 +1,435 @@
+package com.counting_sort_visualizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinatore del Counting Sort partizionato su più processi di lavoro ({@link SortWorker}), raggiunti tramite
+ * socket e con i dati su file condivisi.
+ *
+ * Gli istogrammi del Counting Sort si combinano per semplice somma, per cui l'ordinamento si distribuisce in due fasi
+ * senza mai trasferire i dati tra i processi:
+ * 1. il file di ingresso viene diviso in porzioni contigue, una per processo; ciascun processo conta la propria
+ *    porzione in {@value SortWorker#BUCKETS} bucket, intervalli di valori consecutivi della stessa ampiezza, e
+ *    restituisce i conteggi, che il coordinatore somma;
+ * 2. dalle somme il coordinatore ricava, con una somma prefissa, intervalli di valori formati da bucket consecutivi
+ *    con circa lo stesso numero di elementi, e la posizione di uscita di ciascuno; ogni processo rilegge l'intero file
+ *    di ingresso, conta i soli valori del proprio intervallo con un {@link WideRangeHistogram} e li scrive, già
+ *    ordinati, nella propria porzione, disgiunta dalle altre, del file di uscita.
+ *
+ * La prima fase usa i bucket dei {@value SortWorker#BUCKET_BITS} bit alti del valore, che coprono qualsiasi
+ * intervallo. Se sono troppo grossolani per bilanciare le porzioni, come con valori in un intervallo stretto che cade
+ * in uno o due bucket, la fase viene ripetuta con bucket più stretti, a partire dal minimo osservato e di ampiezza
+ * sufficiente a coprire fino al massimo. Un bucket non viene mai diviso, per cui con pochi valori distinti molto
+ * frequenti le porzioni di uscita possono restare sbilanciate.
+ *
+ * I conteggi per bucket occupano 512 KiB, nel coordinatore e in ciascun processo, qualunque siano il numero, l'ampiezza
+ * e il numero di valori distinti dei dati; anche gli istogrammi della seconda fase hanno un consumo di heap limitato da
+ * una costante (vedi {@link WideRangeHistogram}). In cambio nella seconda fase ogni processo legge l'intero file di
+ * ingresso, per cui le letture complessive crescono con il numero di processi; lettura e scrittura avvengono comunque
+ * in parallelo su tutti i processi, e il file di uscita viene scritto una sola volta.
+ *
+ * I processi possono essere avviati localmente dal coordinatore ({@link #sortFile(Path, Path, ByteOrder, int)}), ad
+ * esempio per verificare la pipeline su una sola macchina, oppure essere già in esecuzione su altri nodi che vedono gli
+ * stessi file allo stesso percorso ({@link #sortFile(Path, Path, ByteOrder, List)}).
+ */
+public final class DistributedCountingSort {
+
+    // Tempo massimo di attesa per l'avvio e la chiusura dei processi locali.
+    private static final long PROCESS_TIMEOUT_SECONDS = 30;
+    // Scarto, in frazione della porzione ideale, oltre il quale si ripete la prima fase con bucket più stretti.
+    private static final int BALANCE_TOLERANCE = 8;
+
+    private DistributedCountingSort() {
+    }
+
+    /**
+     * Ordina un file binario di interi avviando il numero indicato di processi di lavoro locali, che vengono terminati
+     * al termine dell'ordinamento.
+     *
+     * @param input   il file di ingresso: interi a 32 bit consecutivi.
+     * @param output  il file di uscita, creato o sovrascritto.
+     * @param order   l'ordine dei byte di entrambi i file.
+     * @param workers il numero di processi di lavoro.
+     * @return il numero di valori ordinati.
+     * @throws IOException se la lettura, la scrittura o la comunicazione con i processi non riesce.
+     */
+    public static long sortFile(Path input, Path output, ByteOrder order, int workers) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Numero di processi non valido: " + workers);
+        }
+        List<Process> processes = new ArrayList<>();
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int w = 0; w < workers; w++) {
+                processes.add(startWorker());
+            }
+            for (Process process : processes) {
+                connections.add(new Connection(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        readPort(process))));
+            }
+            return sort(input, output, order, connections);
+        } finally {
+            closeAll(connections);
+            for (Process process : processes) {
+                try {
+                    if (!process.waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ordina un file binario di interi con processi di lavoro già in esecuzione.
+     *
+     * @param input   il file di ingresso, visibile a tutti i processi allo stesso percorso.
+     * @param output  il file di uscita, creato o sovrascritto, visibile a tutti i processi allo stesso percorso.
+     * @param order   l'ordine dei byte di entrambi i file.
+     * @param workers gli indirizzi dei processi di lavoro.
+     * @return il numero di valori ordinati.
+     * @throws IOException se la lettura, la scrittura o la comunicazione con i processi non riesce.
+     */
+    public static long sortFile(Path input, Path output, ByteOrder order, List<InetSocketAddress> workers)
+            throws IOException {
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("Nessun processo di lavoro indicato");
+        }
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (InetSocketAddress address : workers) {
+                connections.add(new Connection(address));
+            }
+            return sort(input, output, order, connections);
+        } finally {
+            closeAll(connections);
+        }
+    }
+
+    private static long sort(Path input, Path output, ByteOrder order, List<Connection> connections)
+            throws IOException {
+        long bytes = Files.size(input);
+        if (bytes % 4 != 0) {
+            throw new IOException("La lunghezza del file (" + bytes + " byte) non è un multiplo di 4");
+        }
+        long n = bytes / 4;
+        int workers = connections.size();
+        String inputPath = input.toAbsolutePath().toString();
+        String outputPath = output.toAbsolutePath().toString();
+        boolean littleEndian = order == ByteOrder.LITTLE_ENDIAN;
+
+        // Fase 1: conteggi per bucket dei bit alti delle porzioni contigue del file, sommati.
+        Buckets buckets = count(connections, inputPath, littleEndian, n, Integer.MIN_VALUE, SortWorker.BUCKET_BITS);
+
+        // Il file di uscita viene dimensionato prima della scrittura, così che i processi ne mappino soltanto porzioni.
+        try (RandomAccessFile file = new RandomAccessFile(output.toFile(), "rw")) {
+            file.setLength(bytes);
+        }
+        if (n == 0) return 0;
+
+        int[] bucketFrom = buckets.split(workers);
+        long ideal = (n + workers - 1) / workers;
+        if (buckets.largest(bucketFrom) - ideal > ideal / BALANCE_TOLERANCE) {
+            // Porzioni sbilanciate: se l'intervallo osservato lo consente, la prima fase si ripete con bucket più
+            // stretti che partono dal minimo.
+            int shift = 0;
+            while (((long) buckets.max - buckets.min) >>> shift >= SortWorker.BUCKETS) {
+                shift++;
+            }
+            if (shift < SortWorker.BUCKET_BITS) {
+                buckets = count(connections, inputPath, littleEndian, n, buckets.min, shift);
+                bucketFrom = buckets.split(workers);
+            }
+        }
+
+        // Fase 2: ogni processo scrive, a partire da start, i valori dei bucket [bucketFrom[s], bucketFrom[s + 1]).
+        List<Callable<Long>> writes = new ArrayList<>();
+        long start = 0;
+        for (int s = 0; s < workers; s++) {
+            long length = buckets.count(bucketFrom[s], bucketFrom[s + 1]);
+            if (length == 0) continue;
+            Connection connection = connections.get(s);
+            int lo = (int) buckets.firstValue(bucketFrom[s]);
+            int hi = (int) Math.min(Integer.MAX_VALUE, buckets.firstValue(bucketFrom[s + 1]) - 1);
+            long sliceFrom = start;
+            writes.add(() -> connection.write(inputPath, outputPath, littleEndian, lo, hi, sliceFrom, length));
+            start += length;
+        }
+        long written = 0;
+        for (long w : invokeAll(writes)) {
+            written += w;
+        }
+        if (written != n) {
+            throw new IOException("Scritti " + written + " valori invece di " + n);
+        }
+        return n;
+    }
+
+    /**
+     * Esegue la prima fase: ogni processo conta una porzione contigua del file nei bucket indicati e i conteggi vengono
+     * sommati.
+     */
+    private static Buckets count(List<Connection> connections, String inputPath, boolean littleEndian, long n,
+                                 int base, int shift) throws IOException {
+        int workers = connections.size();
+        List<Callable<Buckets>> counts = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            Connection connection = connections.get(w);
+            long from = n * w / workers;
+            long to = n * (w + 1) / workers;
+            counts.add(() -> connection.count(inputPath, littleEndian, from, to, base, shift));
+        }
+        Buckets sum = new Buckets(base, shift);
+        for (Buckets part : invokeAll(counts)) {
+            sum.add(part);
+        }
+        if (sum.total != n) {
+            throw new IOException("Contati " + sum.total + " valori invece di " + n);
+        }
+        return sum;
+    }
+
+    /**
+     * Esegue i task in parallelo, uno per processo di lavoro, e ne raccoglie i risultati nell'ordine dei task.
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        ExecutorService executor = BackgroundExecutors.newExecutor("distributed-sort");
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ordinamento distribuito interrotto", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Avvia un processo di lavoro locale con lo stesso classpath e lo stesso eseguibile Java del processo corrente.
+     */
+    private static Process startWorker() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SortWorker.class.getName(), "--once");
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        builder.directory(new File(System.getProperty("user.dir")));
+        return builder.start();
+    }
+
+    /**
+     * Legge la riga con cui il processo di lavoro comunica la propria porta.
+     */
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.US_ASCII));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(SortWorker.PORT_PREFIX)) {
+            throw new IOException("Il processo di lavoro non si è avviato correttamente: " + line);
+        }
+        return Integer.parseInt(line.substring(SortWorker.PORT_PREFIX.length()).trim());
+    }
+
+    private static void closeAll(List<Connection> connections) {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Conteggi per bucket: il bucket {@code b} comprende i {@code 2^shift} valori a partire da
+     * {@code base + (b << shift)}.
+     */
+    private static final class Buckets {
+        private final int base;
+        private final int shift;
+        private final long[] counts = new long[SortWorker.BUCKETS];
+        private long total;
+        // Estremi dei valori contati (significativi soltanto se total > 0).
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        Buckets(int base, int shift) {
+            this.base = base;
+            this.shift = shift;
+        }
+
+        void add(Buckets other) {
+            for (int b = 0; b < counts.length; b++) {
+                counts[b] += other.counts[b];
+            }
+            if (other.total > 0) {
+                min = Math.min(min, other.min);
+                max = Math.max(max, other.max);
+            }
+            total += other.total;
+        }
+
+        /**
+         * Primo valore del bucket indicato, anche per {@code bucket == BUCKETS}: può quindi superare i valori di int.
+         */
+        long firstValue(int bucket) {
+            return base + ((long) bucket << shift);
+        }
+
+        /**
+         * @return il numero di valori nei bucket {@code [from, to)}.
+         */
+        long count(int from, int to) {
+            long sum = 0;
+            for (int b = from; b < to; b++) {
+                sum += counts[b];
+            }
+            return sum;
+        }
+
+        /**
+         * Divide i bucket in {@code parts} porzioni consecutive con circa lo stesso numero di valori: la porzione
+         * {@code s} comprende i bucket {@code [from[s], from[s + 1])}. Un bucket che supera più soglie lascia vuote le
+         * porzioni intermedie.
+         */
+        int[] split(int parts) {
+            int[] from = new int[parts + 1];
+            int s = 1;
+            long seen = 0;
+            for (int b = 0; b < counts.length && s < parts; b++) {
+                seen += counts[b];
+                while (s < parts && seen >= total * s / parts) {
+                    from[s++] = b + 1;
+                }
+            }
+            while (s <= parts) {
+                from[s++] = counts.length;
+            }
+            return from;
+        }
+
+        /**
+         * @return il numero di valori della porzione più numerosa di una suddivisione prodotta da {@link #split(int)}.
+         */
+        long largest(int[] from) {
+            long largest = 0;
+            for (int s = 0; s + 1 < from.length; s++) {
+                largest = Math.max(largest, count(from[s], from[s + 1]));
+            }
+            return largest;
+        }
+    }
+
+    /**
+     * Connessione con un processo di lavoro.
+     */
+    private static final class Connection implements Closeable {
+        private final InetSocketAddress address;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Connection(InetSocketAddress address) throws IOException {
+            this.address = address;
+            this.socket = new Socket(address.getAddress(), address.getPort());
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), SortWorker.STREAM_BUFFER));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                    SortWorker.STREAM_BUFFER));
+        }
+
+        Buckets count(String path, boolean littleEndian, long from, long to, int base, int shift) throws IOException {
+            out.writeByte(SortWorker.COUNT);
+            out.writeUTF(path);
+            out.writeBoolean(littleEndian);
+            out.writeLong(from);
+            out.writeLong(to);
+            out.writeInt(base);
+            out.writeByte(shift);
+            out.flush();
+            checkStatus();
+            Buckets partial = new Buckets(base, shift);
+            partial.total = in.readLong();
+            if (partial.total > 0) {
+                partial.min = in.readInt();
+                partial.max = in.readInt();
+            }
+            long occurrences;
+            while ((occurrences = in.readLong()) != 0) {
+                int bucket = in.readInt();
+                if (bucket < 0 || bucket >= SortWorker.BUCKETS) {
+                    throw new IOException("Processo " + address + ": bucket non valido " + bucket);
+                }
+                partial.counts[bucket] += occurrences;
+            }
+            return partial;
+        }
+
+        long write(String inputPath, String outputPath, boolean littleEndian, int lo, int hi, long from, long length)
+                throws IOException {
+            out.writeByte(SortWorker.WRITE);
+            out.writeUTF(inputPath);
+            out.writeUTF(outputPath);
+            out.writeBoolean(littleEndian);
+            out.writeInt(lo);
+            out.writeInt(hi);
+            out.writeLong(from);
+            out.writeLong(length);
+            out.flush();
+            checkStatus();
+            return in.readLong();
+        }
+
+        private void checkStatus() throws IOException {
+            if (in.readByte() != SortWorker.OK) {
+                throw new IOException("Processo " + address + ": " + in.readUTF());
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.writeByte(SortWorker.QUIT);
+                out.flush();
+            } catch (IOException e) {
+                // Il processo ha già chiuso la connessione.
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nessuna azione: la connessione non viene più usata.
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+
+/**
+ * Array di interi primitivi a dimensione variabile: accumula valori senza ricorrere a {@code Integer} boxed, raddoppiando
+ * la capacità quando necessario.
+ */
+public final class GrowableIntArray {
+
+    // Capacità iniziale predefinita, sufficiente per gli input digitati a mano senza riallocazioni.
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] data;
+    private int size;
+
+    /**
+     * Crea un array vuoto con la capacità iniziale predefinita.
+     */
+    public GrowableIntArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Crea un array vuoto con la capacità iniziale indicata.
+     *
+     * @param initialCapacity il numero di elementi che è possibile aggiungere prima della prima riallocazione.
+     */
+    public GrowableIntArray(int initialCapacity) {
+        data = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Aggiunge un valore in coda.
+     *
+     * @param value il valore da aggiungere.
+     */
+    public void add(int value) {
+        if (size == data.length) {
+            // Raddoppio della capacità, limitato alla dimensione massima di un array Java.
+            int newCapacity = (int) Math.min((long) data.length * 2, Integer.MAX_VALUE - 8);
+            if (newCapacity <= size) {
+                throw new OutOfMemoryError("Capacità massima raggiunta: " + size);
+            }
+            data = Arrays.copyOf(data, newCapacity);
+        }
+        data[size++] = value;
+    }
+
+    /**
+     * @param index la posizione del valore, compresa in {@code [0, size())}.
+     * @return il valore nella posizione indicata.
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("indice " + index + " oltre la dimensione " + size);
+        }
+        return data[index];
+    }
+
+    /**
+     * @return il numero di valori accumulati.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Svuota l'array mantenendo la capacità raggiunta, così da poterlo riutilizzare senza nuove allocazioni.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return una copia dei valori accumulati, di lunghezza esattamente pari a {@link #size()}.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,448 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+
+/**
+ * Rappresentazione dell'istogramma usata da {@link SortingLogic#countingSort(int[])}, scelta in base alla forma dei dati.
+ *
+ * Un {@code int[]} di contatori non è sempre la scelta migliore:
+ * - quando l'intervallo è ampio ma le ripetizioni per valore sono poche, contatori da 1 o 2 byte occupano da 4 a 2
+ *   volte meno memoria, e l'istogramma resta più a lungo nelle cache L1/L2 durante il conteggio;
+ * - quando l'intervallo è molto più ampio dell'input ma i valori distinti sono pochi (identificativi, timestamp
+ *   arrotondati), una mappa int → int ad indirizzamento aperto conta soltanto le chiavi presenti;
+ * - quando i conteggi superano {@code Integer.MAX_VALUE}, servono contatori {@code long}.
+ *
+ * I contatori stretti non conoscono in anticipo la propria capienza: {@link #count(int[], int, int)} si ferma
+ * all'elemento che farebbe traboccare un contatore e {@link #promote()} produce una rappresentazione più ampia con gli
+ * stessi conteggi (byte → short → int → long), da cui il conteggio riprende. Un errore di stima costa quindi soltanto
+ * una copia O(k) dell'istogramma.
+ *
+ * La rappresentazione iniziale viene scelta da {@link #select(int[], int, int)} con una pre-scansione a campione.
+ */
+abstract class HistogramBackend {
+
+    // Numero di elementi esaminati dalla pre-scansione a campione.
+    static final int SAMPLE_SIZE = 1024;
+    // Fino a questa ampiezza un int[] di contatori (32 KiB) entra comunque nella cache L1: nessun campionamento.
+    static final int L1_SPAN = 8192;
+    // Un intervallo troppo ampio viene contato con la mappa se i valori distinti sono al più 1/4 del campione.
+    static final int SPARSE_SAMPLE_DIVISOR = 4;
+    // Frazione dell'input oltre la quale la mappa rinuncia (troppi valori distinti) e si ricorre al radix sort.
+    static final int SPARSE_MAX_DISTINCT_DIVISOR = 8;
+
+    /**
+     * Sceglie la rappresentazione iniziale dell'istogramma per l'array indicato.
+     *
+     * Se l'intervallo {@code [min, max]} è proporzionato all'input (lo stesso criterio di {@link SortingLogic}) si usano
+     * contatori densi: {@code int} se l'istogramma entra nella cache L1, altrimenti la larghezza più stretta compatibile
+     * con le ripetizioni stimate dal campione. Se l'intervallo è troppo ampio si usa la mappa sparsa quando il campione
+     * mostra pochi valori distinti, altrimenti nessuna rappresentazione è adatta.
+     *
+     * @param arr l'array da ordinare, non vuoto.
+     * @param min il valore minimo dell'array.
+     * @param max il valore massimo dell'array.
+     * @return la rappresentazione scelta, oppure {@code null} se conviene un ordinamento non basato sul conteggio.
+     */
+    static HistogramBackend select(int[] arr, int min, int max) {
+        int n = arr.length;
+        long span = (long) max - min + 1;
+        // Limite condiviso con SortingLogic, che include il tetto della dimensione massima di un array: oltre ~536 milioni
+        // di elementi il solo criterio proporzionale ammetterebbe intervalli non rappresentabili da un int.
+        boolean dense = span <= SortingLogic.denseSpanLimit(n);
+        if (dense && span <= L1_SPAN) {
+            return new IntCounts(min, (int) span);
+        }
+
+        // Pre-scansione: un campione distribuito uniformemente sull'array viene contato in una piccola mappa, da cui si
+        // stimano il numero di valori distinti e il numero massimo di ripetizioni di un valore.
+        int samples = Math.min(n, SAMPLE_SIZE);
+        int[] sample = new int[samples];
+        for (int s = 0; s < samples; s++) {
+            sample[s] = arr[(int) ((long) s * n / samples)];
+        }
+        SparseCounts probe = new SparseCounts(samples, samples);
+        probe.count(sample, 0, samples);
+
+        if (!dense) {
+            if (probe.distinct() > samples / SPARSE_SAMPLE_DIVISOR) return null;
+            // Capacità iniziale proporzionale alla stima; la mappa cresce se i valori distinti sono di più.
+            long estimate = (long) probe.distinct() * n / samples;
+            int expected = (int) Math.min(estimate, 4L * probe.distinct() + 64);
+            return new SparseCounts(expected, Math.max(SAMPLE_SIZE, n / SPARSE_MAX_DISTINCT_DIVISOR));
+        }
+        // Ripetizioni attese per il valore più frequente; la stima è volutamente ottimistica, perché un contatore che
+        // trabocca viene promosso.
+        long heaviest = (long) probe.maxCount() * n / samples;
+        if (heaviest < 0xFF) return new ByteCounts(min, (int) span);
+        if (heaviest < 0xFFFF) return new ShortCounts(min, (int) span);
+        return new IntCounts(min, (int) span);
+    }
+
+    /**
+     * Conta gli elementi {@code arr[from..to)}, fermandosi prima di un elemento il cui contatore traboccherebbe.
+     *
+     * @return l'indice del primo elemento non contato: {@code to} se tutti gli elementi sono stati contati.
+     */
+    abstract int count(int[] arr, int from, int to);
+
+    /**
+     * @return una rappresentazione più capiente con gli stessi conteggi, oppure {@code null} se non ne esiste una.
+     */
+    abstract HistogramBackend promote();
+
+    /**
+     * Scrive i valori contati, in ordine crescente, a partire dalla posizione indicata.
+     *
+     * @return la posizione successiva all'ultimo elemento scritto.
+     */
+    abstract int fill(int[] dest, int destFrom);
+
+    /**
+     * @return la strategia con cui {@link SortMetrics} registra un ordinamento che termina con questa rappresentazione.
+     */
+    abstract SortMetrics.Strategy strategy();
+
+    /**
+     * Contatori densi da un byte, interpretati senza segno (fino a 255 occorrenze per valore).
+     */
+    static final class ByteCounts extends HistogramBackend {
+        private final int base;
+        private final byte[] counts;
+
+        ByteCounts(int base, int width) {
+            this.base = base;
+            this.counts = new byte[width];
+        }
+
+        @Override
+        SortMetrics.Strategy strategy() {
+            return SortMetrics.Strategy.DENSE_BYTE;
+        }
+
+        @Override
+        int count(int[] arr, int from, int to) {
+            byte[] c = counts;
+            for (int i = from; i < to; i++) {
+                int k = arr[i] - base;
+                byte b = c[k];
+                if (b == (byte) 0xFF) return i;       // Contatore pieno: serve una rappresentazione più ampia.
+                c[k] = (byte) (b + 1);
+            }
+            return to;
+        }
+
+        @Override
+        HistogramBackend promote() {
+            ShortCounts wider = new ShortCounts(base, counts.length);
+            for (int k = 0; k < counts.length; k++) {
+                wider.counts[k] = (short) (counts[k] & 0xFF);
+            }
+            return wider;
+        }
+
+        @Override
+        int fill(int[] dest, int destFrom) {
+            int index = destFrom;
+            for (int k = 0; k < counts.length; k++) {
+                int c = counts[k] & 0xFF;
+                if (c != 0) {
+                    Arrays.fill(dest, index, index + c, k + base);
+                    index += c;
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Contatori densi da due byte, interpretati senza segno (fino a 65535 occorrenze per valore).
+     */
+    static final class ShortCounts extends HistogramBackend {
+        private final int base;
+        private final short[] counts;
+
+        ShortCounts(int base, int width) {
+            this.base = base;
+            this.counts = new short[width];
+        }
+
+        @Override
+        SortMetrics.Strategy strategy() {
+            return SortMetrics.Strategy.DENSE_SHORT;
+        }
+
+        @Override
+        int count(int[] arr, int from, int to) {
+            short[] c = counts;
+            for (int i = from; i < to; i++) {
+                int k = arr[i] - base;
+                short s = c[k];
+                if (s == (short) 0xFFFF) return i;
+                c[k] = (short) (s + 1);
+            }
+            return to;
+        }
+
+        @Override
+        HistogramBackend promote() {
+            IntCounts wider = new IntCounts(base, counts.length);
+            for (int k = 0; k < counts.length; k++) {
+                wider.counts[k] = counts[k] & 0xFFFF;
+                wider.total += wider.counts[k];
+            }
+            return wider;
+        }
+
+        @Override
+        int fill(int[] dest, int destFrom) {
+            int index = destFrom;
+            for (int k = 0; k < counts.length; k++) {
+                int c = counts[k] & 0xFFFF;
+                if (c != 0) {
+                    Arrays.fill(dest, index, index + c, k + base);
+                    index += c;
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Contatori densi {@code int}: la rappresentazione classica del Counting Sort.
+     */
+    static final class IntCounts extends HistogramBackend {
+        private final int base;
+        private final int[] counts;
+        // Elementi contati finora: finché il totale non può superare Integer.MAX_VALUE, nessun contatore trabocca.
+        private long total;
+
+        IntCounts(int base, int width) {
+            this.base = base;
+            this.counts = new int[width];
+        }
+
+        @Override
+        SortMetrics.Strategy strategy() {
+            return SortMetrics.Strategy.DENSE_INT;
+        }
+
+        @Override
+        int count(int[] arr, int from, int to) {
+            int[] c = counts;
+            int b = base;
+            if (total + (to - from) <= Integer.MAX_VALUE) {
+                // Caso comune (sempre vero per un singolo array): ciclo senza controlli, con sotto-istogrammi
+                // interlacciati se l'input contiene lunghe sequenze di valori uguali.
+                if (ScanKernels.interleave(arr, from, to, c.length)) {
+                    ScanKernels.countInterleaved(arr, from, to, b, c);
+                } else {
+                    for (int i = from; i < to; i++) {
+                        c[arr[i] - b]++;
+                    }
+                }
+                total += to - from;
+                return to;
+            }
+            for (int i = from; i < to; i++) {
+                int k = arr[i] - b;
+                if (c[k] == Integer.MAX_VALUE) return i;
+                c[k]++;
+                total++;
+            }
+            return to;
+        }
+
+        @Override
+        HistogramBackend promote() {
+            LongCounts wider = new LongCounts(base, counts.length);
+            for (int k = 0; k < counts.length; k++) {
+                wider.counts[k] = counts[k];
+            }
+            return wider;
+        }
+
+        @Override
+        int fill(int[] dest, int destFrom) {
+            return SortingLogic.fillRuns(counts, counts.length, base, dest, destFrom);
+        }
+    }
+
+    /**
+     * Contatori densi {@code long}, per conteggi che superano {@code Integer.MAX_VALUE} (più chiamate di
+     * {@link #count(int[], int, int)} sullo stesso istogramma).
+     */
+    static final class LongCounts extends HistogramBackend {
+        private final int base;
+        private final long[] counts;
+
+        LongCounts(int base, int width) {
+            this.base = base;
+            this.counts = new long[width];
+        }
+
+        @Override
+        SortMetrics.Strategy strategy() {
+            return SortMetrics.Strategy.DENSE_LONG;
+        }
+
+        @Override
+        int count(int[] arr, int from, int to) {
+            long[] c = counts;
+            for (int i = from; i < to; i++) {
+                c[arr[i] - base]++;
+            }
+            return to;
+        }
+
+        @Override
+        HistogramBackend promote() {
+            return null;
+        }
+
+        @Override
+        int fill(int[] dest, int destFrom) {
+            int index = destFrom;
+            for (int k = 0; k < counts.length; k++) {
+                long c = counts[k];
+                if (c != 0) {
+                    if (c > dest.length - index) {
+                        throw new IndexOutOfBoundsException("Spazio insufficiente per " + c + " copie di " + (k + base));
+                    }
+                    Arrays.fill(dest, index, index + (int) c, k + base);
+                    index += (int) c;
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Mappa int → int ad indirizzamento aperto (scansione lineare) dai valori ai rispettivi conteggi, per intervalli
+     * ampi con pochi valori distinti. Un contatore nullo indica una cella libera, per cui non serve un valore sentinella
+     * tra le chiavi. L'ordine crescente viene ricostruito ordinando le sole chiavi presenti.
+     */
+    static final class SparseCounts extends HistogramBackend {
+        // Moltiplicatore di Fibonacci per distribuire le chiavi (spesso consecutive o con passo costante) sulle celle.
+        private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+        private final int maxDistinct;
+        private int[] keys;
+        private int[] counts;
+        private int shift;
+        private int distinct;
+        private long total;
+
+        /**
+         * @param expected    numero di valori distinti atteso, usato per la capacità iniziale.
+         * @param maxDistinct numero di valori distinti oltre il quale la mappa smette di contare.
+         */
+        SparseCounts(int expected, int maxDistinct) {
+            this.maxDistinct = maxDistinct;
+            // Capacità potenza di due con fattore di carico al più 1/2.
+            int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            counts = new int[capacity];
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        @Override
+        SortMetrics.Strategy strategy() {
+            return SortMetrics.Strategy.SPARSE;
+        }
+
+        @Override
+        int count(int[] arr, int from, int to) {
+            if (total + (to - from) > Integer.MAX_VALUE) {
+                to = (int) (from + (Integer.MAX_VALUE - total));   // I conteggi sono int: oltre serve un'altra strategia.
+            }
+            int mask = keys.length - 1;
+            for (int i = from; i < to; i++) {
+                int key = arr[i];
+                int slot = (key * HASH_MULTIPLIER) >>> shift;
+                while (counts[slot] != 0 && keys[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                if (counts[slot] == 0) {
+                    if (distinct == maxDistinct) return i;           // Troppi valori distinti per una mappa.
+                    if (++distinct > keys.length >>> 1) {
+                        grow();
+                        mask = keys.length - 1;
+                        slot = (key * HASH_MULTIPLIER) >>> shift;
+                        while (counts[slot] != 0) {
+                            slot = (slot + 1) & mask;
+                        }
+                    }
+                    keys[slot] = key;
+                }
+                counts[slot]++;
+                total++;
+            }
+            return to;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            allocate(keys.length << 1);
+            int mask = keys.length - 1;
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldCounts[s] != 0) {
+                    int slot = (oldKeys[s] * HASH_MULTIPLIER) >>> shift;
+                    while (counts[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[s];
+                    counts[slot] = oldCounts[s];
+                }
+            }
+        }
+
+        /**
+         * @return il numero di valori distinti contati.
+         */
+        int distinct() {
+            return distinct;
+        }
+
+        /**
+         * @return il numero di occorrenze del valore più frequente.
+         */
+        int maxCount() {
+            int m = 0;
+            for (int c : counts) {
+                m = Math.max(m, c);
+            }
+            return m;
+        }
+
+        @Override
+        HistogramBackend promote() {
+            return null;
+        }
+
+        @Override
+        int fill(int[] dest, int destFrom) {
+            // Le chiavi presenti vengono compattate insieme ai conteggi e ordinate; a parità di costo si ordinano coppie
+            // codificate in un long (chiave nei 32 bit alti), così che ogni conteggio segua la propria chiave.
+            long[] entries = new long[distinct];
+            int e = 0;
+            for (int s = 0; s < keys.length; s++) {
+                if (counts[s] != 0) {
+                    entries[e++] = (long) keys[s] << 32 | (counts[s] & 0xFFFFFFFFL);
+                }
+            }
+            Arrays.sort(entries);
+            int index = destFrom;
+            for (long entry : entries) {
+                int c = (int) entry;
+                Arrays.fill(dest, index, index + c, (int) (entry >> 32));
+                index += c;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.counting_sort_visualizer;
+
+/**
+ * Lettore di valori interi scritti uno per riga, ottimizzato per testi molto lunghi (centinaia di migliaia di righe).
+ *
+ * Il testo viene scandito carattere per carattere e ogni riga viene convertita direttamente in un {@code int}: non si
+ * usano espressioni regolari, non si creano stringhe per le singole righe e non si passa per {@code Integer} boxed.
+ * Le regole di accettazione coincidono con quelle di {@code Integer.parseInt(line.trim())}:
+ * - gli spazi (e in generale i caratteri di controllo) all'inizio e alla fine della riga vengono ignorati;
+ * - le righe vuote vengono saltate senza essere considerate errori;
+ * - è ammesso un segno iniziale '+' o '-', seguito da almeno una cifra decimale;
+ * - le righe con caratteri non numerici o con valori fuori dall'intervallo di {@code int} vengono scartate e contate.
+ *
+ * Sono riconosciuti come separatori di riga gli stessi caratteri di {@code \R}: LF, CR, la coppia CR LF, U+000B,
+ * U+000C, U+0085, U+2028 e U+2029.
+ */
+public final class IntTextParser {
+
+    private IntTextParser() {
+    }
+
+    /**
+     * Risultato della lettura: i valori validi nell'ordine in cui compaiono e il numero di righe scartate.
+     */
+    public static final class Result {
+        private final int[] values;
+        private final int rejectedLines;
+
+        Result(int[] values, int rejectedLines) {
+            this.values = values;
+            this.rejectedLines = rejectedLines;
+        }
+
+        /**
+         * @return i valori letti, nell'ordine del testo.
+         */
+        public int[] values() {
+            return values;
+        }
+
+        /**
+         * @return il numero di righe non vuote che non rappresentavano un intero valido.
+         */
+        public int rejectedLines() {
+            return rejectedLines;
+        }
+    }
+
+    /**
+     * Legge tutti i valori interi contenuti nel testo.
+     *
+     * @param text il testo da analizzare, con un valore per riga.
+     * @return i valori validi e il numero di righe scartate.
+     */
+    public static Result parse(CharSequence text) {
+        // Stima della capacità: ogni valore occupa almeno due caratteri (una cifra e un separatore).
+        GrowableIntArray values = new GrowableIntArray(Math.max(16, text.length() / 4));
+        int rejected = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            // Individua la fine della riga corrente.
+            int start = i;
+            int end = i;
+            while (end < length && !isLineSeparator(text.charAt(end))) {
+                end++;
+            }
+            i = end + 1;
+            if (end < length && text.charAt(end) == '\r' && i < length && text.charAt(i) == '\n') {
+                i++;                              // La coppia \r\n costituisce un unico separatore.
+            }
+            // Equivalente di trim(): si escludono i caratteri <= ' ' ai due estremi.
+            while (start < end && text.charAt(start) <= ' ') start++;
+            while (end > start && text.charAt(end - 1) <= ' ') end--;
+            if (start == end) {
+                continue;                         // Riga vuota: viene ignorata.
+            }
+            if (parseInto(text, start, end, values)) {
+                continue;
+            }
+            rejected++;
+        }
+        return new Result(values.toArray(), rejected);
+    }
+
+    /**
+     * Converte i caratteri {@code [start, end)} in un intero e lo aggiunge a {@code out}.
+     *
+     * @return {@code true} se la riga era un intero valido, {@code false} altrimenti.
+     */
+    private static boolean parseInto(CharSequence text, int start, int end, GrowableIntArray out) {
+        boolean negative = false;
+        char first = text.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+            if (start == end) return false;       // Solo il segno, senza cifre.
+        }
+        // Accumulo in negativo, come Integer.parseInt, per rappresentare anche Integer.MIN_VALUE senza overflow.
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multiplyMin = limit / 10;
+        int result = 0;
+        for (int p = start; p < end; p++) {
+            int digit = text.charAt(p) - '0';
+            if (digit < 0 || digit > 9) return false;
+            if (result < multiplyMin) return false;
+            result *= 10;
+            if (result < limit + digit) return false;
+            result -= digit;
+        }
+        out.add(negative ? result : -result);
+        return true;
+    }
+
+    private static boolean isLineSeparator(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\u000C'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,117 @@
+package com.counting_sort_visualizer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma delle latenze in stile HdrHistogram: registra durate in nanosecondi con errore relativo limitato
+ * (circa 3%) su tutto l'intervallo dei {@code long}, in memoria costante e senza lock.
+ *
+ * I valori sono raggruppati in bucket log-lineari: ogni potenza di due è divisa in {@value #SUB_BUCKETS} sotto-bucket
+ * di uguale ampiezza, per cui l'ampiezza di un bucket è sempre al più 1/32 dei valori che contiene. I valori minori di
+ * {@code 2 * SUB_BUCKETS} hanno un bucket ciascuno. La registrazione è un incremento atomico su un contatore del
+ * bucket, e più thread possono registrare contemporaneamente; percentili e statistiche sono calcolati su richiesta
+ * scorrendo i bucket.
+ */
+public final class LatencyHistogram {
+
+    // Bit di precisione della mantissa: 2^5 sotto-bucket per potenza di due.
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Bucket necessari per i valori fino a Long.MAX_VALUE (bit più significativo in posizione 62).
+    private static final int BUCKETS = (62 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra una durata.
+     *
+     * @param nanos la durata in nanosecondi; i valori negativi vengono registrati come zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (msb - SUB_BUCKET_BITS));     // Compresa in [SUB_BUCKETS, 2 * SUB_BUCKETS).
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    /**
+     * @return il valore più piccolo che ricade nel bucket indicato.
+     */
+    static long lowestValueOf(int bucket) {
+        int group = bucket >>> SUB_BUCKET_BITS;
+        if (group == 0) return bucket;
+        return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (group - 1);
+    }
+
+    /**
+     * @return il numero di durate registrate.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return la durata massima registrata, in nanosecondi (0 se l'istogramma è vuoto).
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return la durata media, in nanosecondi (0 se l'istogramma è vuoto).
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Calcola un percentile delle durate registrate.
+     *
+     * @param percentile il percentile, tra 0 e 100.
+     * @return il limite superiore del bucket che contiene il percentile (al più il massimo registrato), in nanosecondi;
+     *         0 se l'istogramma è vuoto.
+     */
+    public long percentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                long upper = b + 1 < BUCKETS ? lowestValueOf(b + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(upper, max.get());
+            }
+        }
+        return max.get();      // Registrazioni concorrenti: i contatori dei bucket non sono ancora tutti visibili.
+    }
+
+    /**
+     * Azzera l'istogramma. Le registrazioni concorrenti all'azzeramento possono essere conservate o perse.
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+}
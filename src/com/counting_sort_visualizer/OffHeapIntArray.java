@@ -0,0 +1,244 @@
+package com.counting_sort_visualizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Array di interi fuori dallo heap, indicizzato con {@code long}: supera sia il limite di 2^31 elementi degli array
+ * Java sia il dimensionamento dello heap, perché i dati non sono mai visitati dal garbage collector.
+ *
+ * La memoria è divisa in blocchi di {@value #CHUNK_INTS} interi (1 GiB), ciascuno un {@link ByteBuffer} diretto o una
+ * regione di file mappata in memoria: un {@code ByteBuffer} è indicizzato con un {@code int}, per cui nessun blocco
+ * singolo potrebbe contenere l'intero array. L'indice {@code i} si trova nel blocco {@code i >>> 28}, alla posizione
+ * {@code i & (CHUNK_INTS - 1)}.
+ *
+ * Due forme di allocazione:
+ * - {@link #allocate(long)}: memoria diretta, soggetta al limite {@code -XX:MaxDirectMemorySize} e restituita al
+ *   sistema quando l'array non è più raggiungibile;
+ * - {@link #map(FileChannel, FileChannel.MapMode, long, long, ByteOrder)}: un file mappato in memoria, che non consuma
+ *   memoria diretta e consente di lavorare su dataset più grandi della RAM, appoggiandosi alla cache delle pagine del
+ *   sistema operativo.
+ *
+ * La classe non è thread-safe per scritture concorrenti sulle stesse posizioni.
+ */
+public final class OffHeapIntArray {
+
+    /** Numero di interi per blocco (2^28, ossia 1 GiB). */
+    public static final int CHUNK_INTS = 1 << 28;
+    // Numero di interi copiati per volta dalle operazioni di riempimento e copia.
+    private static final int BLOCK = 4096;
+
+    private final long length;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final ByteBuffer[] bytes;
+    private final IntBuffer[] ints;
+
+    private OffHeapIntArray(long length, int chunkInts, ByteBuffer[] bytes) {
+        this.length = length;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkInts);
+        this.chunkMask = chunkInts - 1;
+        this.bytes = bytes;
+        this.ints = new IntBuffer[bytes.length];
+        for (int c = 0; c < bytes.length; c++) {
+            ints[c] = bytes[c].asIntBuffer();
+        }
+    }
+
+    /**
+     * Alloca un array di memoria diretta, inizializzato a zero, con l'ordine dei byte nativo della piattaforma.
+     *
+     * @param length il numero di elementi.
+     * @return l'array allocato.
+     */
+    public static OffHeapIntArray allocate(long length) {
+        return allocate(length, CHUNK_INTS);
+    }
+
+    /**
+     * Variante di {@link #allocate(long)} con blocchi più piccoli, per verificare il passaggio tra un blocco e l'altro
+     * senza allocare gigabyte.
+     *
+     * @param chunkInts il numero di interi per blocco, potenza di due.
+     */
+    static OffHeapIntArray allocate(long length, int chunkInts) {
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(length, chunkInts)];
+        for (int c = 0; c < chunks.length; c++) {
+            int n = (int) Math.min(chunkInts, length - (long) c * chunkInts);
+            chunks[c] = ByteBuffer.allocateDirect(n * 4).order(ByteOrder.nativeOrder());
+        }
+        return new OffHeapIntArray(length, chunkInts, chunks);
+    }
+
+    /**
+     * Mappa in memoria una regione di un file come array di interi.
+     *
+     * @param channel  il canale del file; con {@link FileChannel.MapMode#READ_WRITE} il file viene esteso se necessario.
+     * @param mode     la modalità di mappatura.
+     * @param position la posizione in byte del primo elemento nel file.
+     * @param length   il numero di elementi.
+     * @param order    l'ordine dei byte degli interi nel file.
+     * @return l'array mappato; le scritture in modalità {@code READ_WRITE} raggiungono il file.
+     * @throws IOException se la mappatura non riesce.
+     */
+    public static OffHeapIntArray map(FileChannel channel, FileChannel.MapMode mode, long position, long length,
+                                      ByteOrder order) throws IOException {
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(length, CHUNK_INTS)];
+        for (int c = 0; c < chunks.length; c++) {
+            long n = Math.min(CHUNK_INTS, length - (long) c * CHUNK_INTS);
+            chunks[c] = channel.map(mode, position + (long) c * CHUNK_INTS * 4, n * 4).order(order);
+        }
+        return new OffHeapIntArray(length, CHUNK_INTS, chunks);
+    }
+
+    private static int chunkCount(long length, int chunkInts) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Lunghezza negativa: " + length);
+        }
+        long chunks = (length + chunkInts - 1) / chunkInts;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lunghezza eccessiva: " + length);
+        }
+        return (int) chunks;
+    }
+
+    /**
+     * @return il numero di elementi.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @param index l'indice dell'elemento.
+     * @return il valore dell'elemento.
+     * @throws IndexOutOfBoundsException se l'indice non è valido.
+     */
+    public int get(long index) {
+        checkIndex(index);
+        return ints[(int) (index >>> chunkShift)].get((int) (index & chunkMask));
+    }
+
+    /**
+     * @param index l'indice dell'elemento.
+     * @param value il nuovo valore.
+     * @throws IndexOutOfBoundsException se l'indice non è valido.
+     */
+    public void set(long index, int value) {
+        checkIndex(index);
+        ints[(int) (index >>> chunkShift)].put((int) (index & chunkMask), value);
+    }
+
+    /**
+     * Assegna lo stesso valore agli elementi {@code [from, to)}, con scritture in blocco.
+     *
+     * @param from  indice iniziale (incluso).
+     * @param to    indice finale (escluso).
+     * @param value il valore da scrivere.
+     */
+    public void fill(long from, long to, int value) {
+        checkRange(from, to);
+        int[] block = new int[(int) Math.min(BLOCK, to - from)];
+        Arrays.fill(block, value);
+        long index = from;
+        while (index < to) {
+            IntBuffer chunk = ints[(int) (index >>> chunkShift)].duplicate();
+            int offset = (int) (index & chunkMask);
+            chunk.position(offset);
+            int n = (int) Math.min(to - index, Math.min(block.length, chunk.limit() - offset));
+            chunk.put(block, 0, n);
+            index += n;
+        }
+    }
+
+    /**
+     * Copia gli elementi {@code [from, from + count)} nell'array indicato.
+     *
+     * @param from     indice del primo elemento da copiare.
+     * @param dest     l'array di destinazione.
+     * @param destFrom la posizione di {@code dest} in cui copiare il primo elemento.
+     * @param count    il numero di elementi.
+     */
+    public void get(long from, int[] dest, int destFrom, int count) {
+        checkRange(from, from + count);
+        long index = from;
+        int done = 0;
+        while (done < count) {
+            IntBuffer chunk = ints[(int) (index >>> chunkShift)].duplicate();
+            int offset = (int) (index & chunkMask);
+            chunk.position(offset);
+            int n = Math.min(count - done, chunk.limit() - offset);
+            chunk.get(dest, destFrom + done, n);
+            index += n;
+            done += n;
+        }
+    }
+
+    /**
+     * Copia gli elementi di un array nelle posizioni {@code [to, to + count)}.
+     *
+     * @param src     l'array di origine.
+     * @param srcFrom la posizione del primo elemento da copiare.
+     * @param to      indice della prima posizione di destinazione.
+     * @param count   il numero di elementi.
+     */
+    public void set(int[] src, int srcFrom, long to, int count) {
+        checkRange(to, to + count);
+        long index = to;
+        int done = 0;
+        while (done < count) {
+            IntBuffer chunk = ints[(int) (index >>> chunkShift)].duplicate();
+            int offset = (int) (index & chunkMask);
+            chunk.position(offset);
+            int n = Math.min(count - done, chunk.limit() - offset);
+            chunk.put(src, srcFrom + done, n);
+            index += n;
+            done += n;
+        }
+    }
+
+    /**
+     * @return il numero di blocchi.
+     */
+    int chunkCount() {
+        return ints.length;
+    }
+
+    /**
+     * @return una vista del blocco indicato come {@code IntBuffer}, con posizione e limite indipendenti.
+     */
+    IntBuffer chunk(int c) {
+        return ints[c].duplicate();
+    }
+
+    /**
+     * @return una vista del blocco indicato come {@code ByteBuffer}, con lo stesso ordine dei byte dei dati.
+     */
+    ByteBuffer chunkBytes(int c) {
+        return bytes[c].duplicate().order(bytes[c].order());
+    }
+
+    /**
+     * @return la posizione nell'array del primo elemento del blocco indicato.
+     */
+    long chunkStart(int c) {
+        return (long) c << chunkShift;
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Indice " + index + " fuori dall'intervallo [0, " + length + ")");
+        }
+    }
+
+    private void checkRange(long from, long to) {
+        if (from < 0 || from > to || to > length) {
+            throw new IndexOutOfBoundsException("Intervallo [" + from + ", " + to + ") non valido per lunghezza "
+                    + length);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.counting_sort_visualizer;
+
+import java.nio.IntBuffer;
+
+/**
+ * Counting Sort su dati fuori dallo heap ({@link OffHeapIntArray}), per input oltre i 2^31 elementi o troppo grandi
+ * per essere tenuti nello heap senza lunghe pause del garbage collector.
+ *
+ * Una prima lettura calcola minimo e massimo. Se l'intervallo lo consente, soltanto l'istogramma risiede nello heap: un
+ * {@link CountingHistogram} con contatori {@code long} e al più {@value #MAX_HISTOGRAM_WIDTH} contatori (64 MiB),
+ * ammesso soltanto se l'intervallo non supera nemmeno quattro contatori per elemento (vedi
+ * {@link CountingHistogram#canAdd(int, int, long)}). L'input viene letto un blocco alla volta e l'output viene scritto
+ * direttamente nell'array di destinazione, a sequenze di valori uguali.
+ *
+ * Con un intervallo più ampio si ricorre a un Radix Sort LSD con cifre di 8 bit e posizioni {@code long}, che richiede
+ * un array di appoggio fuori dallo heap grande quanto l'input; nello heap restano gli istogrammi delle cifre e i buffer
+ * di distribuzione, circa 1 MiB.
+ */
+public final class OffHeapSort {
+
+    /** Numero massimo di contatori dell'istogramma nello heap (64 MiB). */
+    static final int MAX_HISTOGRAM_WIDTH = 1 << 23;
+    private static final int RADIX = 256;
+    private static final int DIGITS = 4;
+    // Numero di interi letti per volta dagli array fuori dallo heap.
+    private static final int BLOCK = 4096;
+    // Valori accumulati per ciascuna cifra prima di essere scritti in blocco nella destinazione della passata.
+    private static final int SCATTER_BUFFER = 1024;
+
+    private OffHeapSort() {
+    }
+
+    /**
+     * Ordina {@code src} scrivendo il risultato in {@code dst}; {@code src} non viene modificato.
+     *
+     * @param src l'array da ordinare.
+     * @param dst l'array di destinazione, della stessa lunghezza di {@code src} e distinto da esso.
+     */
+    public static void sort(OffHeapIntArray src, OffHeapIntArray dst) {
+        if (src.length() != dst.length()) {
+            throw new IllegalArgumentException("src e dst devono avere la stessa lunghezza: " + src.length() + " != "
+                    + dst.length());
+        }
+        if (src == dst) {
+            throw new IllegalArgumentException("la destinazione deve essere distinta dall'origine");
+        }
+        long n = src.length();
+        if (n == 0) return;
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int[] block = new int[(int) Math.min(BLOCK, n)];
+        for (long i = 0; i < n; i += block.length) {
+            int count = (int) Math.min(block.length, n - i);
+            src.get(i, block, 0, count);
+            long minMax = ScanKernels.minMax(block, 0, count);
+            min = Math.min(min, ScanKernels.min(minMax));
+            max = Math.max(max, ScanKernels.max(minMax));
+        }
+        CountingHistogram histogram = new CountingHistogram(MAX_HISTOGRAM_WIDTH);
+        if (!histogram.canAdd(min, max, n)) {
+            radixSort(src, dst);     // Intervallo troppo ampio per un istogramma nello heap.
+            return;
+        }
+        for (int c = 0; c < src.chunkCount(); c++) {
+            histogram.addAll(src.chunkBytes(c));
+        }
+        // Ricostruzione: ogni sequenza di valori uguali diventa un riempimento in blocco della destinazione.
+        long[] position = {0};
+        histogram.forEachRun((value, count) -> {
+            dst.fill(position[0], position[0] + count, value);
+            position[0] += count;
+        });
+    }
+
+    /**
+     * Radix Sort LSD con cifre di 8 bit: gli istogrammi di tutte le cifre vengono calcolati in un'unica lettura di
+     * {@code src}, le cifre identiche per tutte le chiavi vengono saltate e il bit di segno viene invertito sulla cifra
+     * più significativa, come in {@link RadixSort}. Le passate alternano i dati tra {@code dst} e un array di appoggio,
+     * scegliendo la prima destinazione in modo che l'ultima passata scriva in {@code dst}.
+     *
+     * Le letture avvengono a blocchi e la distribuzione passa per un piccolo buffer per cifra, scritto in blocco quando
+     * è pieno: la destinazione riceve così copie contigue anziché una scrittura con controllo dei limiti per elemento.
+     */
+    private static void radixSort(OffHeapIntArray src, OffHeapIntArray dst) {
+        long n = src.length();
+        long[][] count = new long[DIGITS][RADIX];
+        int[] block = new int[(int) Math.min(BLOCK, n)];
+        for (long i = 0; i < n; i += block.length) {
+            int size = (int) Math.min(block.length, n - i);
+            src.get(i, block, 0, size);
+            for (int j = 0; j < size; j++) {
+                int v = block[j] ^ Integer.MIN_VALUE;
+                count[0][v & 0xFF]++;
+                count[1][(v >>> 8) & 0xFF]++;
+                count[2][(v >>> 16) & 0xFF]++;
+                count[3][v >>> 24]++;
+            }
+        }
+        int first = src.get(0) ^ Integer.MIN_VALUE;
+        int passes = 0;
+        boolean[] skip = new boolean[DIGITS];
+        for (int d = 0; d < DIGITS; d++) {
+            skip[d] = count[d][(first >>> d * 8) & 0xFF] == n;   // Tutte le chiavi condividono questa cifra.
+            if (!skip[d]) passes++;
+        }
+        if (passes == 0) {
+            copy(src, dst);     // Tutte le chiavi sono uguali.
+            return;
+        }
+
+        OffHeapIntArray scratch = passes > 1 ? OffHeapIntArray.allocate(n) : null;
+        OffHeapIntArray from = src;
+        // Con un numero dispari di passate la prima scrive in dst, altrimenti nell'array di appoggio.
+        OffHeapIntArray to = passes % 2 == 1 ? dst : scratch;
+        int[][] pending = new int[RADIX][SCATTER_BUFFER];
+        int[] filled = new int[RADIX];
+        for (int d = 0; d < DIGITS; d++) {
+            if (skip[d]) continue;
+            long[] offsets = count[d];
+            long sum = 0;
+            for (int k = 0; k < RADIX; k++) {
+                long c = offsets[k];
+                offsets[k] = sum;
+                sum += c;
+            }
+            int shift = d * 8;
+            for (long i = 0; i < n; i += block.length) {
+                int size = (int) Math.min(block.length, n - i);
+                from.get(i, block, 0, size);
+                for (int j = 0; j < size; j++) {
+                    int v = block[j];
+                    int k = ((v ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+                    int[] buffer = pending[k];
+                    buffer[filled[k]++] = v;            // Collocazione stabile: l'ordine di arrivo si conserva.
+                    if (filled[k] == SCATTER_BUFFER) {
+                        to.set(buffer, 0, offsets[k], SCATTER_BUFFER);
+                        offsets[k] += SCATTER_BUFFER;
+                        filled[k] = 0;
+                    }
+                }
+            }
+            for (int k = 0; k < RADIX; k++) {
+                if (filled[k] == 0) continue;
+                to.set(pending[k], 0, offsets[k], filled[k]);
+                offsets[k] += filled[k];
+                filled[k] = 0;
+            }
+            from = to;
+            to = to == dst ? scratch : dst;
+        }
+    }
+    private static void copy(OffHeapIntArray src, OffHeapIntArray dst) {
+        for (int c = 0; c < src.chunkCount(); c++) {
+            IntBuffer chunk = src.chunk(c);
+            int[] block = new int[Math.min(4096, chunk.limit())];
+            long index = src.chunkStart(c);
+            while (chunk.hasRemaining()) {
+                int n = Math.min(block.length, chunk.remaining());
+                chunk.get(block, 0, n);
+                dst.set(block, 0, index, n);
+                index += n;
+            }
+        }
+    }
+}
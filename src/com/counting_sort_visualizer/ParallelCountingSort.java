@@ -0,0 +1,210 @@
+package com.counting_sort_visualizer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Implementazione parallela del Counting Sort basata sul framework fork-join.
+ *
+ * L'input viene suddiviso in blocchi contigui; ogni blocco costruisce un proprio istogramma privato, senza alcuna
+ * contesa tra i thread. Gli istogrammi vengono poi fusi con una somma prefissa "per valore e per blocco", che assegna
+ * a ciascun blocco un intervallo disgiunto di posizioni di uscita per ogni valore: la fase finale di collocazione può
+ * quindi procedere in parallelo senza sincronizzazione e mantiene la stabilità dell'ordinamento.
+ *
+ * La classe è un dettaglio implementativo: il punto di accesso pubblico è {@link SortingLogic#parallelCountingSort(int[])}.
+ */
+final class ParallelCountingSort {
+
+    /**
+     * Numero minimo di elementi per cui conviene la versione parallela: al di sotto di questa soglia il costo di
+     * creazione dei task e degli istogrammi privati supera il guadagno e si ricorre al percorso sequenziale.
+     *
+     * Valore ricavato da {@code ParallelThresholdBenchmark} (intervallo di 1024 valori, dati uniformi). Sul sistema di
+     * misura, con un solo core, il percorso parallelo svolge circa 3 volte il lavoro di quello sequenziale (7,9 ms
+     * contro 2,4 ms a 2^20 elementi; 0,6-0,8 ms contro 0,38 ms a 2^17), più un costo fisso di qualche decina di
+     * microsecondi. Con {@code p} core il tempo parallelo è quindi circa {@code 3 * T_seq / p + 50 µs}: a 2^17
+     * elementi, con 4 core, circa 0,23 ms contro 0,38 ms; a 2^16 i due percorsi si equivalgono (0,14 contro 0,15 ms).
+     * La soglia è quindi la prima potenza di due con un guadagno netto a 4 core; con 2 core il guadagno resta
+     * marginale a ogni dimensione. Il rapporto di lavoro misurato su un solo core include la contesa tra i thread del
+     * pool: su una macchina con più core conviene ripetere il benchmark per affinare la soglia.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 17;
+    // Dimensione minima di un blocco, così che ogni task abbia abbastanza lavoro da ammortizzare il proprio istogramma.
+    static final int MIN_CHUNK_SIZE = 1 << 15;
+    // Numero di blocchi per thread: un leggero eccesso di blocchi bilancia il carico tramite il work stealing.
+    private static final int CHUNKS_PER_THREAD = 4;
+    // Numero di valori elaborati da ciascun task durante la fusione degli istogrammi.
+    private static final int MERGE_BLOCK_SIZE = 1 << 12;
+
+    private ParallelCountingSort() {
+    }
+
+    /**
+     * Ordina l'array utilizzando il pool indicato.
+     *
+     * @param arr  l'array di interi da ordinare (non viene modificato).
+     * @param pool il pool fork-join su cui eseguire i task.
+     * @return un nuovo array contenente gli elementi ordinati in modo crescente.
+     */
+    static int[] sort(int[] arr, ForkJoinPool pool) {
+        return sort(arr, pool, SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Variante di {@link #sort(int[], ForkJoinPool)} con una soglia esplicita, usata dai benchmark per misurare il
+     * percorso parallelo anche sotto {@link #SEQUENTIAL_THRESHOLD}.
+     *
+     * @param sequentialThreshold il numero di elementi sotto il quale si usa il percorso sequenziale.
+     */
+    static int[] sort(int[] arr, ForkJoinPool pool, int sequentialThreshold) {
+        int n = arr.length;
+        int parallelism = pool.getParallelism();
+        if (n == 0 || n < sequentialThreshold || parallelism < 2) {
+            return SortingLogic.countingSort(arr);   // Input troppo piccolo o pool a thread singolo: percorso sequenziale.
+        }
+        int chunks = chunkCount(n, parallelism);
+        int chunkSize = (n + chunks - 1) / chunks;
+        // Le allocazioni misurate sono quelle del thread chiamante (istogrammi e output), non dei worker del pool.
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+
+        // Fase 1: minimo e massimo di ciascun blocco, calcolati in parallelo e poi combinati.
+        int[] chunkMin = new int[chunks];
+        int[] chunkMax = new int[chunks];
+        final int size = chunkSize;
+        run(pool, chunks, c -> {
+            int from = c * size;
+            int to = Math.min(from + size, n);
+            long minMax = ScanKernels.minMax(arr, from, to);
+            chunkMin[c] = ScanKernels.min(minMax);
+            chunkMax[c] = ScanKernels.max(minMax);
+        });
+        int min = chunkMin[0];
+        int max = chunkMax[0];
+        for (int c = 1; c < chunks; c++) {
+            min = Math.min(min, chunkMin[c]);
+            max = Math.max(max, chunkMax[c]);
+        }
+        long span = (long) max - min + 1;
+        long scanEnd = System.nanoTime();
+        // Ogni blocco alloca un istogramma completo: se l'intervallo è ampio, la memoria complessiva crescerebbe come
+        // chunks * span e il percorso sequenziale (che sa ricorrere al radix) resta la scelta migliore.
+        if (span * chunks > n) {
+            return SortingLogic.countingSort(arr);
+        }
+        final int base = min;
+        final int width = (int) span;
+
+        // Fase 2: istogrammi privati, uno per blocco.
+        int[][] hist = new int[chunks][];
+        run(pool, chunks, c -> {
+            int[] h = new int[width];
+            int from = c * size;
+            int to = Math.min(from + size, n);
+            for (int i = from; i < to; i++) {
+                h[arr[i] - base]++;
+            }
+            hist[c] = h;
+        });
+
+        // Fase 3: somma prefissa. L'ordine delle posizioni è (valore, blocco): per ogni valore, il blocco c riceve
+        // l'intervallo immediatamente successivo a quello del blocco c - 1. La fusione procede per gruppi di valori:
+        // prima si calcola il totale di ciascun gruppo, poi la base di partenza e infine gli scostamenti interni.
+        int mergeBlocks = (width + MERGE_BLOCK_SIZE - 1) / MERGE_BLOCK_SIZE;
+        int[] blockStart = new int[mergeBlocks];
+        final int nChunks = chunks;
+        run(pool, mergeBlocks, b -> {
+            int from = b * MERGE_BLOCK_SIZE;
+            int to = Math.min(from + MERGE_BLOCK_SIZE, width);
+            int total = 0;
+            for (int c = 0; c < nChunks; c++) {
+                int[] h = hist[c];
+                for (int v = from; v < to; v++) {
+                    total += h[v];
+                }
+            }
+            blockStart[b] = total;
+        });
+        int running = 0;
+        for (int b = 0; b < mergeBlocks; b++) {
+            int total = blockStart[b];
+            blockStart[b] = running;
+            running += total;
+        }
+        run(pool, mergeBlocks, b -> {
+            int from = b * MERGE_BLOCK_SIZE;
+            int to = Math.min(from + MERGE_BLOCK_SIZE, width);
+            int offset = blockStart[b];
+            for (int v = from; v < to; v++) {
+                for (int c = 0; c < nChunks; c++) {
+                    int count = hist[c][v];
+                    hist[c][v] = offset;          // Il contatore diventa la prima posizione libera per (valore, blocco).
+                    offset += count;
+                }
+            }
+        });
+
+        long countEnd = System.nanoTime();
+
+        // Fase 4: ogni blocco colloca i propri elementi negli intervalli di uscita che gli sono stati riservati.
+        int[] sorted = new int[n];
+        run(pool, chunks, c -> {
+            int[] pos = hist[c];
+            int from = c * size;
+            int to = Math.min(from + size, n);
+            for (int i = from; i < to; i++) {
+                int v = arr[i];
+                sorted[pos[v - base]++] = v;
+            }
+        });
+        SortMetrics.global().recordSort(SortMetrics.Strategy.PARALLEL, n, span, start, scanEnd, countEnd,
+                System.nanoTime(), allocBefore);
+        return sorted;
+    }
+
+    /**
+     * Numero di blocchi in cui viene diviso un input di {@code n} elementi, non vuoto, su un pool con il grado di
+     * parallelismo indicato.
+     */
+    static int chunkCount(int n, int parallelism) {
+        int chunks = Math.max(1, Math.min(parallelism * CHUNKS_PER_THREAD, n / MIN_CHUNK_SIZE));
+        int chunkSize = (n + chunks - 1) / chunks;
+        return (n + chunkSize - 1) / chunkSize;    // Ricalcolo per non lasciare blocchi vuoti in coda.
+    }
+
+    /**
+     * Esegue {@code body} per ogni indice in {@code [0, count)} sul pool indicato, attendendo il completamento.
+     */
+    static void run(ForkJoinPool pool, int count, IntConsumer body) {
+        if (count == 0) return;
+        pool.invoke(new RangeTask(0, count, body));
+    }
+
+    /**
+     * Task ricorsivo che divide a metà l'intervallo di indici fino ad arrivare a un singolo indice da elaborare.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer body;
+
+        RangeTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, body), new RangeTask(mid, to, body));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.counting_sort_visualizer;
+
+/**
+ * Radix Sort LSD costruito sul nucleo del Counting Sort: ogni passata è un Counting Sort stabile su una cifra della
+ * chiave, con un istogramma abbastanza piccolo da restare nella cache L1. Consente di ordinare in tempo lineare chiavi
+ * a 32 e 64 bit su qualsiasi intervallo, dove un array di conteggio diretto sarebbe sproporzionato.
+ *
+ * Rispetto alla formulazione elementare:
+ * - gli istogrammi di tutte le cifre vengono calcolati in un'unica lettura dell'input, prima della prima passata (la
+ *   distribuzione delle cifre non dipende dall'ordine degli elementi), risparmiando una lettura completa per passata;
+ * - le cifre identiche per tutte le chiavi (per esempio i byte alti di valori piccoli) vengono riconosciute dagli
+ *   istogrammi e le relative passate saltate;
+ * - il bit di segno viene invertito durante l'estrazione della cifra più significativa, così che le chiavi negative
+ *   precedano quelle positive senza una passata di correzione.
+ *
+ * Le chiavi {@code int} usano cifre di {@value #INT_DIGIT_BITS} bit (4 passate, 256 contatori), le chiavi {@code long}
+ * cifre di {@value #LONG_DIGIT_BITS} bit (6 passate, 2048 contatori da 8 KiB), che riducono il numero di passate
+ * mantenendo l'istogramma nella cache L1.
+ *
+ * Un {@link PassListener} riceve lo stato dell'array dopo ogni passata, per visualizzare l'ordinamento cifra per cifra.
+ */
+public final class RadixSort {
+
+    /** Bit per cifra nell'ordinamento di chiavi {@code int}. */
+    public static final int INT_DIGIT_BITS = 8;
+    /** Bit per cifra nell'ordinamento di chiavi {@code long}. */
+    public static final int LONG_DIGIT_BITS = 11;
+
+    private static final int INT_RADIX = 1 << INT_DIGIT_BITS;
+    private static final int INT_DIGITS = (32 + INT_DIGIT_BITS - 1) / INT_DIGIT_BITS;
+    private static final int LONG_RADIX = 1 << LONG_DIGIT_BITS;
+    private static final int LONG_DIGITS = (64 + LONG_DIGIT_BITS - 1) / LONG_DIGIT_BITS;
+    // Posizione e maschera di inversione del bit di segno all'interno della cifra più significativa.
+    private static final int INT_SIGN_FLIP = 1 << (31 - (INT_DIGITS - 1) * INT_DIGIT_BITS);
+    private static final long LONG_SIGN_FLIP = 1L << (63 - (LONG_DIGITS - 1) * LONG_DIGIT_BITS);
+
+    /**
+     * Osservatore delle passate del radix sort, usato per visualizzare l'ordinamento cifra per cifra.
+     */
+    public interface PassListener {
+        /**
+         * Invocato al termine di ogni passata effettivamente eseguita (le cifre saltate non producono notifiche).
+         *
+         * @param digit l'indice della cifra appena ordinata, a partire da 0 per la meno significativa.
+         * @param shift la posizione in bit della cifra.
+         * @param data  l'array di lavoro con lo stato corrente: non va modificato né conservato, perché la passata
+         *              successiva lo riutilizza.
+         * @param from  l'indice iniziale (incluso) dei dati in {@code data}.
+         * @param to    l'indice finale (escluso) dei dati in {@code data}.
+         */
+        void afterPass(int digit, int shift, int[] data, int from, int to);
+    }
+
+    private RadixSort() {
+    }
+
+    /**
+     * Ordina l'array in un nuovo array, senza modificare l'originale.
+     *
+     * @param arr l'array da ordinare.
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static int[] sort(int[] arr) {
+        return sort(arr, null);
+    }
+
+    /**
+     * Ordina l'array in un nuovo array, notificando l'osservatore dopo ogni passata.
+     *
+     * @param arr      l'array da ordinare (non viene modificato).
+     * @param listener l'osservatore delle passate, oppure {@code null}.
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static int[] sort(int[] arr, PassListener listener) {
+        int[] sorted = arr.clone();
+        sort(sorted, 0, sorted.length, new int[sorted.length], listener);
+        return sorted;
+    }
+
+    /**
+     * Ordina in place la porzione {@code [from, to)} dell'array, usando il buffer fornito dal chiamante.
+     *
+     * @param a      l'array da ordinare.
+     * @param from   indice iniziale (incluso).
+     * @param to     indice finale (escluso).
+     * @param buffer buffer di appoggio di almeno {@code to - from} elementi, il cui contenuto viene sovrascritto.
+     */
+    public static void sort(int[] a, int from, int to, int[] buffer) {
+        sort(a, from, to, buffer, null);
+    }
+
+    private static void sort(int[] a, int from, int to, int[] buffer, PassListener listener) {
+        int n = to - from;
+        if (n < 2) return;
+        if (buffer.length < n) {
+            throw new IllegalArgumentException("Buffer troppo piccolo: " + buffer.length + " < " + n);
+        }
+        // Unica lettura dell'input: istogrammi di tutte le cifre, affiancati in un solo array.
+        int[] count = new int[INT_DIGITS * INT_RADIX];
+        for (int i = from; i < to; i++) {
+            int v = a[i] ^ (INT_SIGN_FLIP << (INT_DIGITS - 1) * INT_DIGIT_BITS);
+            for (int d = 0; d < INT_DIGITS; d++) {
+                count[d * INT_RADIX + ((v >>> d * INT_DIGIT_BITS) & (INT_RADIX - 1))]++;
+            }
+        }
+
+        int[] src = a;
+        int srcFrom = from;
+        int[] dst = buffer;
+        int dstFrom = 0;
+        for (int d = 0; d < INT_DIGITS; d++) {
+            int shift = d * INT_DIGIT_BITS;
+            int flip = d == INT_DIGITS - 1 ? INT_SIGN_FLIP : 0;   // Sulla cifra più significativa si inverte il segno.
+            int offset = d * INT_RADIX;
+            if (count[offset + (((src[srcFrom] >>> shift) & (INT_RADIX - 1)) ^ flip)] == n) {
+                continue;        // Tutte le chiavi condividono questa cifra: la passata non cambierebbe l'ordine.
+            }
+            // Somme prefisse: count[offset + k] diventa la prima posizione di uscita della cifra k.
+            int sum = dstFrom;
+            for (int k = offset; k < offset + INT_RADIX; k++) {
+                int c = count[k];
+                count[k] = sum;
+                sum += c;
+            }
+            for (int i = srcFrom; i < srcFrom + n; i++) {
+                int v = src[i];
+                dst[count[offset + (((v >>> shift) & (INT_RADIX - 1)) ^ flip)]++] = v;   // Collocazione stabile.
+            }
+            int[] tmpArray = src;     // Scambio dei ruoli dei due array per la passata successiva.
+            src = dst;
+            dst = tmpArray;
+            int tmpFrom = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = tmpFrom;
+            if (listener != null) {
+                listener.afterPass(d, shift, src, srcFrom, srcFrom + n);
+            }
+        }
+        if (src != a) {
+            System.arraycopy(src, srcFrom, a, from, n);   // Numero dispari di passate: il risultato è nel buffer.
+        }
+    }
+
+    /**
+     * Ordina l'array di chiavi {@code long} in un nuovo array, senza modificare l'originale.
+     *
+     * @param arr l'array da ordinare.
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static long[] sort(long[] arr) {
+        long[] sorted = arr.clone();
+        sort(sorted, 0, sorted.length, new long[sorted.length]);
+        return sorted;
+    }
+
+    /**
+     * Ordina in place la porzione {@code [from, to)} dell'array di chiavi {@code long}, usando il buffer fornito dal
+     * chiamante.
+     *
+     * @param a      l'array da ordinare.
+     * @param from   indice iniziale (incluso).
+     * @param to     indice finale (escluso).
+     * @param buffer buffer di appoggio di almeno {@code to - from} elementi, il cui contenuto viene sovrascritto.
+     */
+    public static void sort(long[] a, int from, int to, long[] buffer) {
+        int n = to - from;
+        if (n < 2) return;
+        if (buffer.length < n) {
+            throw new IllegalArgumentException("Buffer troppo piccolo: " + buffer.length + " < " + n);
+        }
+        int[] count = new int[LONG_DIGITS * LONG_RADIX];
+        for (int i = from; i < to; i++) {
+            long v = a[i] ^ (LONG_SIGN_FLIP << (LONG_DIGITS - 1) * LONG_DIGIT_BITS);
+            for (int d = 0; d < LONG_DIGITS; d++) {
+                count[d * LONG_RADIX + (int) ((v >>> d * LONG_DIGIT_BITS) & (LONG_RADIX - 1))]++;
+            }
+        }
+
+        long[] src = a;
+        int srcFrom = from;
+        long[] dst = buffer;
+        int dstFrom = 0;
+        for (int d = 0; d < LONG_DIGITS; d++) {
+            int shift = d * LONG_DIGIT_BITS;
+            long flip = d == LONG_DIGITS - 1 ? LONG_SIGN_FLIP : 0;
+            int offset = d * LONG_RADIX;
+            if (count[offset + (int) (((src[srcFrom] >>> shift) & (LONG_RADIX - 1)) ^ flip)] == n) {
+                continue;
+            }
+            int sum = dstFrom;
+            for (int k = offset; k < offset + LONG_RADIX; k++) {
+                int c = count[k];
+                count[k] = sum;
+                sum += c;
+            }
+            for (int i = srcFrom; i < srcFrom + n; i++) {
+                long v = src[i];
+                dst[count[offset + (int) (((v >>> shift) & (LONG_RADIX - 1)) ^ flip)]++] = v;
+            }
+            long[] tmpArray = src;
+            src = dst;
+            dst = tmpArray;
+            int tmpFrom = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = tmpFrom;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcFrom, a, from, n);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.counting_sort_visualizer;
+
+/**
+ * Nuclei di calcolo dei primi due passaggi del Counting Sort.
+ *
+ * - {@link #minMax(int[], int, int)} calcola minimo e massimo in un'unica lettura fusa, al posto di due riduzioni
+ *   separate (o degli stream {@code IntStream.min/max}, che leggono l'array due volte attraverso la pipeline). Una
+ *   variante a quattro accumulatori indipendenti non è risultata più veloce del ciclo con salti condizionati, per cui il
+ *   nucleo resta scalare: la lettura è comunque limitata dalla banda di memoria.
+ * - {@link #countInterleaved(int[], int, int, int, int[])} conta in quattro sotto-istogrammi interlacciati: sui dati
+ *   con lunghe sequenze di valori uguali, incrementi consecutivi dello stesso contatore formano una catena
+ *   lettura-scrittura-lettura attraverso la memoria che serializza il ciclo; distribuendo gli elementi consecutivi su
+ *   contatori distinti la catena si spezza. Sui dati senza ripetizioni ravvicinate il ciclo elementare è più veloce,
+ *   per cui {@link #interleave(int[], int, int, int)} sceglie il nucleo osservando un prefisso dell'input.
+ *
+ * Il conteggio interlacciato si disattiva avviando la JVM con {@code -Dcounting_sort_visualizer.kernels=false}: in tal
+ * caso viene usato il ciclo elementare, con risultati identici.
+ */
+final class ScanKernels {
+
+    /** Indica se il conteggio interlacciato è attivo. */
+    static final boolean ENABLED =
+            !"false".equalsIgnoreCase(System.getProperty("counting_sort_visualizer.kernels"));
+    // Numero di sotto-istogrammi del conteggio interlacciato.
+    static final int LANES = 4;
+    // Ampiezza massima per il conteggio interlacciato: 4 sotto-istogrammi da 2048 int occupano 32 KiB (cache L1).
+    static final int INTERLEAVE_MAX_SPAN = 2048;
+    // Elementi per contatore sotto i quali la somma finale dei sotto-istogrammi non viene ammortizzata.
+    static final int INTERLEAVE_MIN_DENSITY = 16;
+    // Lunghezza del prefisso in cui si misura la frequenza di elementi uguali al precedente.
+    static final int REPEAT_SAMPLE = 1024;
+
+    private ScanKernels() {
+    }
+
+    /**
+     * Calcola minimo e massimo di {@code a[from..to)}, non vuoto, con un'unica lettura.
+     *
+     * @return il minimo nei 32 bit alti e il massimo nei 32 bit bassi: si estraggono con {@link #min(long)} e
+     *         {@link #max(long)} (la coppia viene restituita in un {@code long} per non allocare).
+     */
+    static long minMax(int[] a, int from, int to) {
+        int min = a[from];
+        int max = min;
+        for (int i = from + 1; i < to; i++) {
+            int v = a[i];
+            if (v < min) min = v;
+            else if (v > max) max = v;     // Un nuovo minimo non può essere anche un nuovo massimo.
+        }
+        return (long) min << 32 | (max & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return il minimo contenuto nel risultato di {@link #minMax(int[], int, int)}.
+     */
+    static int min(long minMax) {
+        return (int) (minMax >> 32);
+    }
+
+    /**
+     * @return il massimo contenuto nel risultato di {@link #minMax(int[], int, int)}.
+     */
+    static int max(long minMax) {
+        return (int) minMax;
+    }
+
+    /**
+     * Indica se conviene il conteggio interlacciato di {@code a[from..to)} su {@code width} contatori: l'istogramma
+     * moltiplicato per {@value #LANES} deve restare nella cache L1, l'input deve ammortizzarne la somma finale e, in un
+     * prefisso di {@value #REPEAT_SAMPLE} elementi, almeno metà degli elementi deve essere uguale al precedente.
+     */
+    static boolean interleave(int[] a, int from, int to, int width) {
+        if (!ENABLED || width > INTERLEAVE_MAX_SPAN || to - from < (long) INTERLEAVE_MIN_DENSITY * width) {
+            return false;
+        }
+        int end = Math.min(to, from + REPEAT_SAMPLE);
+        int repeats = 0;
+        for (int i = from + 1; i < end; i++) {
+            if (a[i] == a[i - 1]) repeats++;
+        }
+        return 2 * repeats >= end - from - 1;
+    }
+
+    /**
+     * Aggiunge a {@code counts} le occorrenze dei valori di {@code a[from..to)}, traslati di {@code base}, usando
+     * {@value #LANES} sotto-istogrammi interlacciati. Il chiamante garantisce che nessun contatore trabocchi.
+     */
+    static void countInterleaved(int[] a, int from, int to, int base, int[] counts) {
+        int width = counts.length;
+        // La prima corsia conta direttamente in counts; le altre tre sono affiancate in un solo array di appoggio.
+        int[] lanes = new int[(LANES - 1) * width];
+        int w1 = 0;
+        int w2 = width;
+        int w3 = 2 * width;
+        int i = from;
+        for (int end = to - (LANES - 1); i < end; i += LANES) {
+            counts[a[i] - base]++;
+            lanes[w1 + a[i + 1] - base]++;
+            lanes[w2 + a[i + 2] - base]++;
+            lanes[w3 + a[i + 3] - base]++;
+        }
+        for (; i < to; i++) {
+            counts[a[i] - base]++;
+        }
+        for (int k = 0; k < width; k++) {
+            counts[k] += lanes[w1 + k] + lanes[w2 + k] + lanes[w3 + k];
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.counting_sort_visualizer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metriche di esecuzione degli ordinamenti e delle animazioni, raccolte senza lock.
+ *
+ * Per ogni ordinamento di {@link SortingLogic} vengono registrati dimensione dell'input, ampiezza delle chiavi,
+ * strategia scelta, durata delle fasi (ricerca di minimo e massimo, conteggio, ricostruzione) e byte allocati dal
+ * thread; {@link BarAnimationEngine} registra la durata dei fotogrammi. I contatori sono {@link LongAdder} e le durate
+ * finiscono in {@link LatencyHistogram}, per cui più thread possono registrare contemporaneamente con un costo di
+ * poche decine di nanosecondi per operazione.
+ *
+ * Le metriche sono esposte tramite JMX ({@link SortMetricsMXBean}, dopo {@link #registerMBean()}), come testo
+ * riassuntivo ({@link #summary()}) per il pannello dell'interfaccia, e come notifiche per operazione agli
+ * osservatori registrati con {@link #addListener(Listener)}. La raccolta si disattiva avviando la JVM con
+ * {@code -Dcounting_sort_visualizer.metrics=false}.
+ */
+public final class SortMetrics implements SortMetricsMXBean {
+
+    /** Nome con cui le metriche vengono registrate sul server JMX della piattaforma. */
+    public static final String OBJECT_NAME = "com.counting_sort_visualizer:type=SortMetrics";
+
+    /**
+     * Strategie di ordinamento distinte dalle metriche.
+     */
+    public enum Strategy {
+        /** Counting Sort con contatori da un byte. */
+        DENSE_BYTE,
+        /** Counting Sort con contatori da due byte. */
+        DENSE_SHORT,
+        /** Counting Sort con contatori {@code int}. */
+        DENSE_INT,
+        /** Counting Sort con contatori {@code long}. */
+        DENSE_LONG,
+        /** Conteggio in una mappa sparsa. */
+        SPARSE,
+        /** Radix Sort LSD. */
+        RADIX,
+        /** Counting Sort parallelo con istogrammi privati per blocco. */
+        PARALLEL,
+        /** Input già ordinato, riconosciuto dal selettore adattivo e soltanto copiato. */
+        PRESORTED,
+        /** Ordinamento per confronti della libreria standard, scelto dal selettore adattivo. */
+        COMPARISON
+    }
+
+    /**
+     * Osservatore dei singoli ordinamenti: consente per esempio di inoltrare ogni operazione a un sistema di eventi
+     * esterno. Viene invocato sul thread che ha eseguito l'ordinamento, per cui deve essere rapido.
+     */
+    public interface Listener {
+        /**
+         * @param strategy  la strategia usata.
+         * @param size      la dimensione dell'input.
+         * @param span      l'ampiezza dell'intervallo delle chiavi.
+         * @param scanNanos la durata della ricerca di minimo e massimo.
+         * @param countNanos la durata del conteggio.
+         * @param fillNanos la durata della ricostruzione dell'output.
+         * @param allocated i byte allocati dal thread durante l'ordinamento (-1 se non misurati).
+         */
+        void sortCompleted(Strategy strategy, int size, long span, long scanNanos, long countNanos, long fillNanos,
+                           long allocated);
+    }
+
+    private static final SortMetrics GLOBAL = new SortMetrics();
+    // La raccolta è attiva salvo diversa indicazione all'avvio della JVM.
+    private static final boolean ENABLED =
+            !"false".equalsIgnoreCase(System.getProperty("counting_sort_visualizer.metrics"));
+    // Misura dei byte allocati per thread, disponibile sulle JVM HotSpot.
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+    // Thread che stanno eseguendo ordinamenti da non registrare (vedi withoutRecording).
+    private static final ThreadLocal<Boolean> SUPPRESSED = new ThreadLocal<>();
+
+    private final LongAdder sorts = new LongAdder();
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder bytesAllocated = new LongAdder();
+    private final LongAdder[] strategyCounts = new LongAdder[Strategy.values().length];
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram scan = new LatencyHistogram();
+    private final LatencyHistogram count = new LatencyHistogram();
+    private final LatencyHistogram fill = new LatencyHistogram();
+    private final LatencyHistogram frames = new LatencyHistogram();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Ultima operazione registrata, per il pannello e per JMX.
+    private volatile int lastSize;
+    private volatile long lastSpan;
+    private volatile Strategy lastStrategy;
+
+    private SortMetrics() {
+        for (int s = 0; s < strategyCounts.length; s++) {
+            strategyCounts[s] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return le metriche globali dell'applicazione.
+     */
+    public static SortMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return {@code true} se la raccolta delle metriche è attiva.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+                if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                    return hotspot;
+                }
+            }
+        } catch (LinkageError | RuntimeException e) {
+            // JVM priva dell'estensione HotSpot: i byte allocati non vengono misurati.
+        }
+        return null;
+    }
+
+    /**
+     * @return i byte allocati finora dal thread corrente, oppure -1 se non misurabili o se le metriche sono disattivate.
+     */
+    static long allocatedBytes() {
+        if (!ENABLED || ALLOCATION == null) return -1;
+        return ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Esegue {@code action} senza registrare gli ordinamenti che avvia sul thread corrente: serve alle prove sintetiche,
+     * come la calibrazione di {@link SortingLogic#calibrateSort()}, e agli ordinamenti interni, come quello con cui
+     * {@link DataGenerator} produce le distribuzioni ordinate, che non devono confondersi con le operazioni
+     * dell'applicazione. Gli ordinamenti paralleli vengono registrati dal thread che li avvia, per cui sono esclusi
+     * anch'essi.
+     *
+     * @param action l'operazione da eseguire.
+     * @param <T>    il tipo del risultato.
+     * @return il risultato di {@code action}.
+     */
+    static <T> T withoutRecording(Supplier<T> action) {
+        boolean outermost = SUPPRESSED.get() == null;
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (outermost) SUPPRESSED.remove();   // Le chiamate annidate lasciano la sospensione a quella esterna.
+        }
+    }
+
+    /**
+     * Registra un ordinamento. Gli istanti sono valori di {@link System#nanoTime()} presi al confine tra le fasi.
+     *
+     * @param strategy    la strategia usata.
+     * @param size        la dimensione dell'input.
+     * @param span        l'ampiezza dell'intervallo delle chiavi.
+     * @param start       l'istante di inizio.
+     * @param scanEnd     la fine della ricerca di minimo e massimo.
+     * @param countEnd    la fine del conteggio.
+     * @param end         la fine della ricostruzione dell'output.
+     * @param allocBefore i byte allocati dal thread all'inizio, come restituiti da {@link #allocatedBytes()}.
+     */
+    void recordSort(Strategy strategy, int size, long span, long start, long scanEnd, long countEnd, long end,
+                    long allocBefore) {
+        if (!ENABLED || SUPPRESSED.get() != null) return;
+        long allocated = allocBefore < 0 ? -1 : allocatedBytes() - allocBefore;
+        sorts.increment();
+        elements.add(size);
+        strategyCounts[strategy.ordinal()].increment();
+        if (allocated > 0) bytesAllocated.add(allocated);
+        total.record(end - start);
+        scan.record(scanEnd - start);
+        count.record(countEnd - scanEnd);
+        fill.record(end - countEnd);
+        lastSize = size;
+        lastSpan = span;
+        lastStrategy = strategy;
+        for (Listener listener : listeners) {
+            listener.sortCompleted(strategy, size, span, scanEnd - start, countEnd - scanEnd, end - countEnd, allocated);
+        }
+    }
+
+    /**
+     * Registra la durata di un fotogramma di animazione.
+     *
+     * @param nanos l'intervallo tra due impulsi consecutivi del thread JavaFX.
+     */
+    void recordFrame(long nanos) {
+        if (ENABLED) frames.record(nanos);
+    }
+
+    /**
+     * @param listener l'osservatore da notificare dopo ogni ordinamento.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener l'osservatore da rimuovere.
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registra le metriche globali sul server JMX della piattaforma con il nome {@link #OBJECT_NAME}; le chiamate
+     * successive non hanno effetto.
+     *
+     * @return {@code true} se le metriche risultano registrate.
+     */
+    public static synchronized boolean registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(GLOBAL, name);
+            }
+            return true;
+        } catch (JMException | SecurityException e) {
+            return false;    // Le metriche restano disponibili nell'interfaccia anche senza JMX.
+        }
+    }
+
+    /**
+     * @return un riepilogo testuale delle metriche, su più righe, per il pannello dell'interfaccia.
+     */
+    public String summary() {
+        if (!ENABLED) {
+            return "Metriche disattivate";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Ordinamenti: %d (%d elementi)\n", sorts.sum(), elements.sum()));
+        Strategy last = lastStrategy;
+        if (last != null) {
+            sb.append(String.format(Locale.ROOT, "Ultimo: %s, n=%d, k=%d\n", last, lastSize, lastSpan));
+        }
+        sb.append(String.format(Locale.ROOT, "Durata p50/p99/max: %.2f / %.2f / %.2f ms\n",
+                total.percentile(50) / 1e6, total.percentile(99) / 1e6, total.max() / 1e6));
+        sb.append(String.format(Locale.ROOT, "Fasi p99 (min-max/conteggio/output): %.2f / %.2f / %.2f ms\n",
+                scan.percentile(99) / 1e6, count.percentile(99) / 1e6, fill.percentile(99) / 1e6));
+        sb.append(ALLOCATION == null ? "Allocazioni: non misurate\n"
+                : String.format(Locale.ROOT, "Allocazioni: %.1f MiB\n", bytesAllocated.sum() / (1024.0 * 1024.0)));
+        sb.append(String.format(Locale.ROOT, "Fotogrammi: %d, p99 %.1f ms, max %.1f ms",
+                frames.count(), frames.percentile(99) / 1e6, frames.max() / 1e6));
+        return sb.toString();
+    }
+
+    @Override
+    public long getSortCount() {
+        return sorts.sum();
+    }
+
+    @Override
+    public long getElementsSorted() {
+        return elements.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStrategyCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Strategy s : Strategy.values()) {
+            result.put(s.name(), strategyCounts[s.ordinal()].sum());
+        }
+        return result;
+    }
+
+    @Override
+    public long getBytesAllocated() {
+        return bytesAllocated.sum();
+    }
+
+    @Override
+    public int getLastInputSize() {
+        return lastSize;
+    }
+
+    @Override
+    public long getLastSpan() {
+        return lastSpan;
+    }
+
+    @Override
+    public String getLastStrategy() {
+        Strategy last = lastStrategy;
+        return last == null ? "" : last.name();
+    }
+
+    @Override
+    public double getSortLatencyP50Micros() {
+        return total.percentile(50) / 1e3;
+    }
+
+    @Override
+    public double getSortLatencyP99Micros() {
+        return total.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getSortLatencyMaxMicros() {
+        return total.max() / 1e3;
+    }
+
+    @Override
+    public double getScanP99Micros() {
+        return scan.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getCountP99Micros() {
+        return count.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getFillP99Micros() {
+        return fill.percentile(99) / 1e3;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frames.count();
+    }
+
+    @Override
+    public double getFrameTimeP99Millis() {
+        return frames.percentile(99) / 1e6;
+    }
+
+    @Override
+    public double getFrameTimeMaxMillis() {
+        return frames.max() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        sorts.reset();
+        elements.reset();
+        bytesAllocated.reset();
+        for (LongAdder adder : strategyCounts) {
+            adder.reset();
+        }
+        total.reset();
+        scan.reset();
+        count.reset();
+        fill.reset();
+        frames.reset();
+        lastSize = 0;
+        lastSpan = 0;
+        lastStrategy = null;
+    }
+}
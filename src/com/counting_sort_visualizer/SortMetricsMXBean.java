@@ -0,0 +1,61 @@
+package com.counting_sort_visualizer;
+
+import java.util.Map;
+
+/**
+ * Interfaccia JMX delle metriche di ordinamento raccolte da {@link SortMetrics}, registrata con il nome
+ * {@value SortMetrics#OBJECT_NAME}. Le durate sono espresse in microsecondi, quelle dei fotogrammi in millisecondi.
+ */
+public interface SortMetricsMXBean {
+
+    /** @return il numero di ordinamenti registrati. */
+    long getSortCount();
+
+    /** @return il numero complessivo di elementi ordinati. */
+    long getElementsSorted();
+
+    /** @return il numero di ordinamenti per strategia scelta. */
+    Map<String, Long> getStrategyCounts();
+
+    /** @return i byte allocati complessivamente dagli ordinamenti (0 se la JVM non li misura). */
+    long getBytesAllocated();
+
+    /** @return la dimensione dell'input dell'ultimo ordinamento. */
+    int getLastInputSize();
+
+    /** @return l'ampiezza dell'intervallo delle chiavi dell'ultimo ordinamento. */
+    long getLastSpan();
+
+    /** @return la strategia dell'ultimo ordinamento, oppure una stringa vuota. */
+    String getLastStrategy();
+
+    /** @return la mediana della durata complessiva degli ordinamenti. */
+    double getSortLatencyP50Micros();
+
+    /** @return il 99° percentile della durata complessiva degli ordinamenti. */
+    double getSortLatencyP99Micros();
+
+    /** @return la durata massima di un ordinamento. */
+    double getSortLatencyMaxMicros();
+
+    /** @return il 99° percentile della fase di ricerca di minimo e massimo (inclusa la scelta della strategia). */
+    double getScanP99Micros();
+
+    /** @return il 99° percentile della fase di conteggio. */
+    double getCountP99Micros();
+
+    /** @return il 99° percentile della fase di ricostruzione dell'output. */
+    double getFillP99Micros();
+
+    /** @return il numero di fotogrammi di animazione registrati. */
+    long getFrameCount();
+
+    /** @return il 99° percentile della durata dei fotogrammi di animazione. */
+    double getFrameTimeP99Millis();
+
+    /** @return la durata massima di un fotogramma di animazione. */
+    double getFrameTimeMaxMillis();
+
+    /** Azzera tutte le metriche. */
+    void reset();
+}
@@ -0,0 +1,192 @@
+package com.counting_sort_visualizer;
+
+/**
+ * Traccia compatta dell'esecuzione del Counting Sort: registra ogni operazione significativa dell'algoritmo
+ * (incremento di un contatore, passo delle somme prefisse, collocazione di un elemento) così da poterla riprodurre
+ * fedelmente e scorrere avanti e indietro con {@link SortTracePlayer}.
+ *
+ * Gli eventi non sono oggetti: ciascuno occupa un solo {@code int} in un {@link GrowableIntArray}. I due bit meno
+ * significativi contengono il tipo di evento, i restanti la differenza (codificata zig-zag) tra l'operando dell'evento
+ * e quello dell'evento precedente dello stesso tipo. Nel Counting Sort gli operandi avanzano di una posizione alla volta,
+ * per cui le differenze valgono quasi sempre +1 o -1; le rare differenze che non entrano nei bit disponibili vengono
+ * scritte per intero dopo un marcatore di escape.
+ *
+ * Gli eventi seguono la formulazione classica dell'algoritmo:
+ * 1. {@link #INCREMENT}: per ogni indice {@code i} dell'input, {@code count[arr[i] - min]++};
+ * 2. {@link #PREFIX}: per ogni contatore {@code k >= 1}, {@code count[k] += count[k - 1]};
+ * 3. {@link #PLACE}: scorrendo l'input all'indietro, {@code out[--count[arr[i] - min]] = arr[i]} (collocazione stabile).
+ */
+public final class SortTrace {
+
+    /** Evento di conteggio: l'operando è l'indice dell'elemento dell'input letto. */
+    public static final int INCREMENT = 0;
+    /** Evento di somma prefissa: l'operando è l'indice del contatore aggiornato. */
+    public static final int PREFIX = 1;
+    /** Evento di collocazione: l'operando è l'indice dell'elemento dell'input collocato nell'output. */
+    public static final int PLACE = 2;
+    // Marcatore di escape: l'intero successivo contiene l'operando in forma assoluta.
+    static final int ESCAPE = 3;
+    // Massimo valore zig-zag rappresentabile nei 30 bit disponibili.
+    static final int MAX_ZIGZAG = (1 << 30) - 1;
+
+    private final int[] input;
+    private final int min;
+    private final int width;
+    private final int[] sorted;
+    private final GrowableIntArray events;
+    private final int eventCount;
+
+    private SortTrace(int[] input, int min, int width, int[] sorted, GrowableIntArray events, int eventCount) {
+        this.input = input;
+        this.min = min;
+        this.width = width;
+        this.sorted = sorted;
+        this.events = events;
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * Indica se l'array può essere registrato da {@link #record(int[])}, cioè se l'intervallo dei suoi valori resta
+     * entro il limite del conteggio diretto.
+     *
+     * @param arr l'array da ordinare.
+     * @return {@code true} se {@link #record(int[])} accetta l'array.
+     */
+    public static boolean canRecord(int[] arr) {
+        if (arr.length == 0) return true;
+        long minMax = ScanKernels.minMax(arr, 0, arr.length);
+        return fits((long) ScanKernels.max(minMax) - ScanKernels.min(minMax) + 1, arr.length);
+    }
+
+    private static boolean fits(long span, int n) {
+        return span <= (long) SortingLogic.COUNTING_SPAN_FACTOR * n + SortingLogic.MIN_COUNTING_SPAN;
+    }
+
+    /**
+     * Esegue il Counting Sort sull'array registrandone la traccia.
+     *
+     * @param arr l'array da ordinare (non viene modificato; la traccia ne conserva una copia).
+     * @return la traccia, che contiene anche il risultato dell'ordinamento.
+     * @throws IllegalArgumentException se l'intervallo dei valori è troppo ampio per un array di conteggio diretto
+     *                                  (lo stesso limite oltre il quale {@link SortingLogic#countingSort(int[])}
+     *                                  ricorre al radix sort); si verifica prima con {@link #canRecord(int[])}.
+     */
+    public static SortTrace record(int[] arr) {
+        int[] input = arr.clone();
+        int n = input.length;
+        int min = 0;
+        int max = -1;
+        if (n > 0) {
+            min = input[0];
+            max = input[0];
+            for (int v : input) {
+                if (v < min) min = v;
+                else if (v > max) max = v;
+            }
+        }
+        long span = (long) max - min + 1;
+        if (!fits(span, n)) {
+            throw new IllegalArgumentException("intervallo dei valori troppo ampio per la traccia: " + span);
+        }
+        int width = (int) span;
+        // Ogni elemento produce due eventi e ogni contatore uno: la capacità iniziale evita riallocazioni.
+        GrowableIntArray events = new GrowableIntArray((int) Math.min(Integer.MAX_VALUE - 8, 2L * n + width + 16));
+        Encoder encoder = new Encoder(events);
+
+        int[] count = new int[width];
+        for (int i = 0; i < n; i++) {
+            count[input[i] - min]++;
+            encoder.write(INCREMENT, i);
+        }
+        for (int k = 1; k < width; k++) {
+            count[k] += count[k - 1];
+            encoder.write(PREFIX, k);
+        }
+        int[] sorted = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            sorted[--count[input[i] - min]] = input[i];
+            encoder.write(PLACE, i);
+        }
+        return new SortTrace(input, min, width, sorted, events, encoder.count);
+    }
+
+    /**
+     * @return una copia dell'input su cui è stata registrata la traccia (l'array restituito non va modificato).
+     */
+    public int[] input() {
+        return input;
+    }
+
+    /**
+     * @return il valore minimo dell'input, corrispondente al contatore di indice 0.
+     */
+    public int min() {
+        return min;
+    }
+
+    /**
+     * @return il numero di contatori dell'istogramma.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return l'array ordinato prodotto dall'esecuzione registrata (l'array restituito non va modificato).
+     */
+    public int[] sorted() {
+        return sorted;
+    }
+
+    /**
+     * @return il numero di eventi registrati.
+     */
+    public int eventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return il numero di interi occupati dalla codifica degli eventi.
+     */
+    public int encodedSize() {
+        return events.size();
+    }
+
+    GrowableIntArray events() {
+        return events;
+    }
+
+    static int zigzag(int delta) {
+        return (delta << 1) ^ (delta >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Codificatore degli eventi: conserva l'ultimo operando di ciascun tipo per calcolare le differenze.
+     */
+    private static final class Encoder {
+        private final GrowableIntArray out;
+        private final int[] previous = new int[3];
+        private int count;
+
+        Encoder(GrowableIntArray out) {
+            this.out = out;
+        }
+
+        void write(int type, int operand) {
+            long delta = (long) operand - previous[type];
+            int zz = zigzag((int) delta);
+            if (delta == (int) delta && zz >= 0 && zz <= MAX_ZIGZAG) {
+                out.add(zz << 2 | type);
+            } else {
+                out.add(type << 2 | ESCAPE);   // Differenza non rappresentabile: operando scritto per intero.
+                out.add(operand);
+            }
+            previous[type] = operand;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.counting_sort_visualizer;
+
+import java.util.Arrays;
+
+/**
+ * Riproduttore di una {@link SortTrace}: ricostruisce lo stato del Counting Sort dopo un numero qualsiasi di eventi e
+ * consente di avanzare un evento alla volta oppure di saltare a un passo arbitrario, in avanti o all'indietro.
+ *
+ * Lo stato dell'algoritmo è interamente descritto dall'array dei contatori: durante la fase di collocazione, infatti,
+ * le posizioni già scritte del contatore {@code k} sono esattamente {@code [count[k], fine[k])}, dove {@code fine[k]}
+ * è il valore del contatore al termine delle somme prefisse. Non serve quindi conservare copie dell'array di output.
+ *
+ * Per gli spostamenti arbitrari il riproduttore memorizza, a intervalli regolari di eventi, un'istantanea dei contatori
+ * e dello stato del decodificatore: un salto individua l'istantanea che precede il passo richiesto e riproduce al più
+ * un intervallo di eventi, per cui il costo di un salto è proporzionale all'intervallo e non alla posizione.
+ *
+ * Ogni istantanea copia tutti i {@code width} contatori, per cui l'intervallo è un compromesso tra memoria e costo
+ * dei salti: viene scelto come il più piccolo (almeno {@value #MIN_SNAPSHOT_INTERVAL} eventi) per cui le istantanee
+ * restano entro {@code max(}{@value #SNAPSHOT_BUDGET_FACTOR}{@code  * eventi, }{@value #MIN_SNAPSHOT_BUDGET}{@code )}
+ * interi, cioè {@code eventi * width / budget}. Con pochi contatori (il caso del visualizzatore) un salto riproduce al
+ * più qualche centinaio di eventi; con un intervallo ampio quanto {@code 4n} e un milione di elementi l'intervallo sale
+ * a circa un milione di eventi, riprodotti in pochi millisecondi. Un costo logaritmico richiederebbe istantanee
+ * incrementali dei contatori, con una struttura persistente più onerosa della traccia stessa.
+ */
+public final class SortTracePlayer {
+
+    // Intervallo minimo, in eventi, tra due istantanee.
+    private static final int MIN_SNAPSHOT_INTERVAL = 256;
+    // Memoria delle istantanee, in interi: un multiplo del numero di eventi, con un minimo fisso (16 MiB).
+    private static final int SNAPSHOT_BUDGET_FACTOR = 4;
+    private static final int MIN_SNAPSHOT_BUDGET = 1 << 22;
+
+    private final SortTrace trace;
+    private final int[] input;
+    private final int min;
+    private final int[] events;
+    private final int eventCount;
+    private final int interval;
+    // Valore dei contatori al termine delle somme prefisse: fine (esclusa) dell'intervallo di uscita di ciascun valore.
+    private final int[] ends;
+    // Istantanee: contatori, posizione nel buffer codificato e ultimi operandi per tipo di evento.
+    private final int[][] snapshotCounts;
+    private final int[] snapshotOffset;
+    private final int[] snapshotPrevious;
+
+    // Stato corrente della riproduzione.
+    private final int[] count;
+    private final int[] previous = new int[3];
+    private int step;
+    private int offset;
+    private int lastType = -1;
+    private int lastOperand;
+    private int lastTarget;
+
+    /**
+     * Crea un riproduttore posizionato all'inizio della traccia (nessun evento applicato).
+     *
+     * @param trace la traccia da riprodurre.
+     */
+    public SortTracePlayer(SortTrace trace) {
+        this.trace = trace;
+        this.input = trace.input();
+        this.min = trace.min();
+        this.events = trace.events().toArray();
+        this.eventCount = trace.eventCount();
+        int width = trace.width();
+        long budget = Math.max((long) SNAPSHOT_BUDGET_FACTOR * eventCount, MIN_SNAPSHOT_BUDGET);
+        long needed = ((long) eventCount * width + budget - 1) / budget;
+        this.interval = (int) Math.max(MIN_SNAPSHOT_INTERVAL, Math.min(needed, Math.max(1, eventCount)));
+        this.count = new int[width];
+
+        ends = new int[width];
+        for (int v : input) {
+            ends[v - min]++;
+        }
+        for (int k = 1; k < width; k++) {
+            ends[k] += ends[k - 1];
+        }
+
+        // Prima riproduzione completa, durante la quale si raccolgono le istantanee.
+        int snapshots = eventCount / interval + 1;
+        snapshotCounts = new int[snapshots][];
+        snapshotOffset = new int[snapshots];
+        snapshotPrevious = new int[snapshots * 3];
+        for (int s = 0; s < snapshots; s++) {
+            while (step < s * interval) {
+                next();
+            }
+            snapshotCounts[s] = count.clone();
+            snapshotOffset[s] = offset;
+            System.arraycopy(previous, 0, snapshotPrevious, s * 3, 3);
+        }
+        restore(0);
+    }
+
+    /**
+     * @return la traccia riprodotta.
+     */
+    public SortTrace trace() {
+        return trace;
+    }
+
+    /**
+     * @return il numero totale di eventi della traccia.
+     */
+    public int stepCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return il numero di eventi applicati finora.
+     */
+    public int position() {
+        return step;
+    }
+
+    /**
+     * Applica l'evento successivo.
+     *
+     * @return {@code false} se la traccia era già terminata.
+     */
+    public boolean next() {
+        if (step >= eventCount) return false;
+        int word = events[offset++];
+        int type;
+        int operand;
+        if ((word & 3) == SortTrace.ESCAPE) {
+            type = word >>> 2;
+            operand = events[offset++];
+        } else {
+            type = word & 3;
+            operand = previous[type] + SortTrace.unzigzag(word >>> 2);
+        }
+        previous[type] = operand;
+        switch (type) {
+            case SortTrace.INCREMENT:
+                lastTarget = input[operand] - min;
+                count[lastTarget]++;
+                break;
+            case SortTrace.PREFIX:
+                count[operand] += count[operand - 1];
+                lastTarget = operand;
+                break;
+            default:
+                lastTarget = --count[input[operand] - min];
+                break;
+        }
+        lastType = type;
+        lastOperand = operand;
+        step++;
+        return true;
+    }
+
+    /**
+     * Porta la riproduzione al passo indicato, cioè allo stato successivo ai primi {@code target} eventi.
+     *
+     * @param target il passo desiderato; viene limitato all'intervallo {@code [0, stepCount()]}.
+     */
+    public void seek(int target) {
+        target = Math.max(0, Math.min(eventCount, target));
+        if (target == step) return;
+        // Istantanea che precede il passo richiesto: si lascia almeno un evento da riprodurre, così da conoscere
+        // anche l'ultimo evento applicato.
+        int s = target == 0 ? 0 : (target - 1) / interval;
+        if (target < step || step < s * interval) {
+            restore(s);
+        }
+        while (step < target) {
+            next();
+        }
+    }
+
+    private void restore(int s) {
+        System.arraycopy(snapshotCounts[s], 0, count, 0, count.length);
+        offset = snapshotOffset[s];
+        System.arraycopy(snapshotPrevious, s * 3, previous, 0, 3);
+        step = s * interval;
+        lastType = -1;
+    }
+
+    /**
+     * @return il tipo dell'ultimo evento applicato ({@link SortTrace#INCREMENT}, {@link SortTrace#PREFIX} o
+     *         {@link SortTrace#PLACE}), oppure -1 se nessun evento è stato applicato.
+     */
+    public int lastType() {
+        return lastType;
+    }
+
+    /**
+     * @return l'operando dell'ultimo evento applicato: l'indice dell'input per conteggi e collocazioni, l'indice del
+     *         contatore per le somme prefisse.
+     */
+    public int lastOperand() {
+        return lastOperand;
+    }
+
+    /**
+     * @return il contatore toccato dall'ultimo conteggio o somma prefissa, oppure la posizione di output dell'ultima
+     *         collocazione.
+     */
+    public int lastTarget() {
+        return lastTarget;
+    }
+
+    /**
+     * @return {@code true} se la riproduzione si trova nella fase di collocazione (almeno un elemento già collocato).
+     */
+    public boolean isPlacing() {
+        return step > eventCount - input.length || (input.length == 0 && step > 0);
+    }
+
+    /**
+     * @param k l'indice del contatore.
+     * @return il valore corrente del contatore.
+     */
+    public int count(int k) {
+        return count[k];
+    }
+
+    /**
+     * Scrive in {@code dest} lo stato corrente dell'array di output: le posizioni non ancora collocate ricevono il valore
+     * {@code empty}.
+     *
+     * @param dest  l'array di destinazione, di lunghezza almeno pari all'input.
+     * @param empty il valore da usare per le posizioni ancora vuote.
+     */
+    public void fillOutput(int[] dest, int empty) {
+        int n = input.length;
+        Arrays.fill(dest, 0, n, empty);
+        if (!isPlacing()) return;
+        for (int k = 0; k < count.length; k++) {
+            int from = count[k];
+            int to = ends[k];
+            if (from < to) {
+                Arrays.fill(dest, from, to, k + min);
+            }
+        }
+    }
+}
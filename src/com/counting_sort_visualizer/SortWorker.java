@@ -0,0 +1,253 @@
+package com.counting_sort_visualizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * Processo di lavoro dell'ordinamento distribuito di {@link DistributedCountingSort}: riceve comandi dal coordinatore
+ * su una connessione TCP ed esegue le due fasi locali del Counting Sort partizionato.
+ *
+ * - {@code COUNT}: conta per bucket una porzione di un file binario di interi, mappata in memoria, e restituisce i
+ *   conteggi dei bucket non vuoti con il minimo e il massimo della porzione;
+ * - {@code WRITE}: rilegge l'intero file di ingresso, conta in un {@link WideRangeHistogram} i soli valori
+ *   dell'intervallo assegnato dal coordinatore e li scrive, già ordinati, nella propria porzione del file di uscita.
+ *   L'intervallo può avere qualsiasi ampiezza: oltre il conteggio diretto i valori vengono distribuiti per bucket in un
+ *   file temporaneo nella cartella del file di uscita.
+ *
+ * Ogni comando completa tutto il lavoro che può fallire prima di rispondere {@code OK}: un errore viene quindi sempre
+ * riportato come {@code ERROR}, senza lasciare la connessione a metà di una risposta.
+ *
+ * I file sono indicati per percorso: coordinatore e processi di lavoro devono quindi vederli allo stesso percorso
+ * (stessa macchina o file system condiviso). Il processo stampa su standard output una riga {@code PORT <n>} con la
+ * porta su cui è in ascolto, così che chi lo avvia possa collegarsi anche con una porta scelta dal sistema.
+ *
+ * Utilizzo:
+ * <pre>
+ * java -cp bin com.counting_sort_visualizer.SortWorker [--port n] [--bind indirizzo] [--once]
+ * </pre>
+ * Senza {@code --bind} il processo accetta soltanto connessioni dall'interfaccia di loopback; con {@code --once}
+ * termina alla chiusura della prima connessione.
+ */
+public final class SortWorker {
+
+    // Comandi del protocollo.
+    static final byte COUNT = 1;
+    static final byte WRITE = 2;
+    static final byte QUIT = 3;
+    // Esiti delle risposte.
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    // Prefisso della riga con cui il processo comunica la propria porta.
+    static final String PORT_PREFIX = "PORT ";
+    // Dimensione dei buffer dei flussi della connessione.
+    static final int STREAM_BUFFER = 1 << 16;
+    // Numero di bit e numero di bucket dei conteggi di COUNT.
+    static final int BUCKET_BITS = 16;
+    static final int BUCKETS = 1 << BUCKET_BITS;
+    // Numero di interi trasferiti per volta dai file mappati.
+    private static final int BLOCK = 4096;
+
+    private SortWorker() {
+    }
+
+    /**
+     * Punto di ingresso del processo di lavoro.
+     *
+     * @param args le opzioni descritte nella documentazione della classe.
+     * @throws IOException se non è possibile mettersi in ascolto.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 0;
+        InetAddress bind = InetAddress.getLoopbackAddress();
+        boolean once = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--bind":
+                    bind = InetAddress.getByName(args[++i]);
+                    break;
+                case "--once":
+                    once = true;
+                    break;
+                default:
+                    System.err.println("Opzione sconosciuta: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        try (ServerSocket server = new ServerSocket(port, 1, bind)) {
+            System.out.println(PORT_PREFIX + server.getLocalPort());
+            System.out.flush();
+            do {
+                try (Socket socket = server.accept()) {
+                    serve(socket);
+                } catch (IOException e) {
+                    System.err.println("Connessione interrotta: " + e.getMessage());
+                }
+            } while (!once);
+        }
+    }
+
+    /**
+     * Esegue i comandi ricevuti sulla connessione fino a {@code QUIT} o alla sua chiusura.
+     */
+    static void serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER));
+        while (true) {
+            int command;
+            try {
+                command = in.readByte();
+            } catch (EOFException e) {
+                return;     // Il coordinatore ha chiuso la connessione.
+            }
+            switch (command) {
+                case COUNT:
+                    count(in, out);
+                    break;
+                case WRITE:
+                    write(in, out);
+                    break;
+                case QUIT:
+                    return;
+                default:
+                    throw new IOException("Comando sconosciuto: " + command);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * {@code COUNT path littleEndian from to base shift}: conta i valori della porzione {@code [from, to)} nei bucket
+     * di {@code 2^shift} valori a partire da {@code base}. Risponde {@code OK}, il numero di valori ({@code long}),
+     * minimo e massimo se la porzione non è vuota e i bucket non vuoti come sequenze (occorrenze {@code long}, bucket
+     * {@code int}), con un'occorrenza nulla come terminatore; oppure {@code ERROR} e un messaggio.
+     */
+    private static void count(DataInputStream in, DataOutputStream out) throws IOException {
+        Path file = Paths.get(in.readUTF());
+        ByteOrder order = in.readBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        long from = in.readLong();
+        long to = in.readLong();
+        int base = in.readInt();
+        int shift = in.readByte();
+        long[] counts = new long[BUCKETS];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (shift < 0 || shift > BUCKET_BITS) {
+                throw new IllegalArgumentException("Ampiezza dei bucket non valida: 2^" + shift);
+            }
+            OffHeapIntArray data = OffHeapIntArray.map(channel, FileChannel.MapMode.READ_ONLY, from * 4, to - from,
+                    order);
+            int[] block = new int[BLOCK];
+            for (long i = 0; i < data.length(); i += BLOCK) {
+                int n = (int) Math.min(BLOCK, data.length() - i);
+                data.get(i, block, 0, n);
+                long minMax = ScanKernels.minMax(block, 0, n);
+                min = Math.min(min, ScanKernels.min(minMax));
+                max = Math.max(max, ScanKernels.max(minMax));
+                if (min < base || ((long) max - base) >>> shift >= BUCKETS) {
+                    throw new IllegalStateException("Valori esterni ai bucket richiesti: " + min + ".." + max);
+                }
+                for (int j = 0; j < n; j++) {
+                    counts[(int) (((long) block[j] - base) >>> shift)]++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            error(out, e);
+            return;
+        }
+        out.writeByte(OK);
+        out.writeLong(to - from);
+        if (to > from) {
+            out.writeInt(min);
+            out.writeInt(max);
+        }
+        for (int b = 0; b < BUCKETS; b++) {
+            if (counts[b] != 0) writeRun(out, b, counts[b]);
+        }
+        out.writeLong(0);
+    }
+
+    /**
+     * {@code WRITE inputPath outputPath littleEndian lo hi outFrom length}: ordina i valori del file di ingresso
+     * compresi in {@code [lo, hi]}, che devono essere {@code length}, e li scrive nel file di uscita a partire dalla
+     * posizione {@code outFrom}. Risponde {@code OK} e il numero di valori scritti, oppure {@code ERROR} e un messaggio.
+     */
+    private static void write(DataInputStream in, DataOutputStream out) throws IOException {
+        Path input = Paths.get(in.readUTF());
+        Path output = Paths.get(in.readUTF());
+        ByteOrder order = in.readBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        int lo = in.readInt();
+        int hi = in.readInt();
+        long outFrom = in.readLong();
+        long length = in.readLong();
+        try (WideRangeHistogram histogram = new WideRangeHistogram(output.toAbsolutePath().getParent());
+             FileChannel source = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(output, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            OffHeapIntArray data = OffHeapIntArray.map(source, FileChannel.MapMode.READ_ONLY, 0, source.size() / 4,
+                    order);
+            forEachInRange(data, lo, hi, histogram::add);
+            if (histogram.needsSecondPass()) {
+                histogram.beginSecondPass();
+                forEachInRange(data, lo, hi, histogram::distribute);
+            }
+            if (histogram.total() != length) {
+                throw new IllegalStateException("Contati " + histogram.total() + " valori in [" + lo + ", " + hi
+                        + "] invece di " + length);
+            }
+            OffHeapIntArray slice = OffHeapIntArray.map(target, FileChannel.MapMode.READ_WRITE, outFrom * 4, length,
+                    order);
+            long[] written = new long[1];
+            histogram.forEachRun((value, occurrences) -> {
+                slice.fill(written[0], written[0] + occurrences, value);
+                written[0] += occurrences;
+            });
+        } catch (IOException | RuntimeException e) {
+            error(out, e);
+            return;
+        }
+        out.writeByte(OK);
+        out.writeLong(length);
+    }
+
+    /**
+     * Passa a {@code sink}, nell'ordine del file, i valori di {@code data} compresi in {@code [lo, hi]}.
+     */
+    private static void forEachInRange(OffHeapIntArray data, int lo, int hi, IntConsumer sink) {
+        int[] block = new int[BLOCK];
+        for (long i = 0; i < data.length(); i += BLOCK) {
+            int n = (int) Math.min(BLOCK, data.length() - i);
+            data.get(i, block, 0, n);
+            for (int j = 0; j < n; j++) {
+                int v = block[j];
+                if (v >= lo && v <= hi) sink.accept(v);
+            }
+        }
+    }
+
+    private static void writeRun(DataOutputStream out, int value, long occurrences) throws IOException {
+        out.writeLong(occurrences);
+        out.writeInt(value);
+    }
+
+    private static void error(DataOutputStream out, Exception e) throws IOException {
+        out.writeByte(ERROR);
+        out.writeUTF(String.valueOf(e.getMessage()));
+    }
+}
@@ -0,0 +1,327 @@
+package com.counting_sort_visualizer;
+
+import javafx.collections.FXCollections;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.NumberFormat;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Vista virtualizzata dei valori ordinati, al posto di una {@code TextArea} con un valore per riga.
+ *
+ * Una {@code TextArea} con un milione di righe conserva l'intero testo e ne calcola il layout; qui invece una
+ * {@link ListView} crea soltanto le celle visibili e ne produce il testo al momento, leggendo direttamente l'array
+ * primitivo dei risultati. Gli elementi della lista sono gli indici delle righe, generati su richiesta da una lista
+ * virtuale, per cui la memoria occupata dall'interfaccia dipende dall'altezza della vista e non dal numero di valori.
+ *
+ * Due modalità di visualizzazione:
+ * - un valore per riga, come nella vecchia area di testo;
+ * - una riga per sequenza di valori uguali, nella forma "7 ×12.403", per cui un milione di valori su un intervallo
+ *   ristretto si riduce a poche righe.
+ *
+ * Le righe selezionate si copiano negli appunti (Ctrl+C o menu contestuale, fino a {@value #COPY_LIMIT} righe);
+ * l'intero risultato si esporta su file con {@link #export(int[], boolean, Writer, ExportProgress)}, che scrive il testo
+ * a blocchi senza mai comporlo in memoria.
+ */
+public class SortedOutputView extends VBox {
+
+    /** Numero massimo di righe copiate negli appunti: per selezioni più ampie si usa l'esportazione su file. */
+    public static final int COPY_LIMIT = 100_000;
+    // Altezza fissa delle celle: evita che la ListView misuri ogni cella per calcolare la barra di scorrimento.
+    private static final double CELL_HEIGHT = 22;
+    // Numero di righe tra un aggiornamento dell'avanzamento e il successivo durante l'esportazione.
+    private static final int EXPORT_PROGRESS_STEP = 1 << 16;
+
+    /**
+     * Osservatore dell'avanzamento dell'esportazione, che può anche interromperla.
+     */
+    public interface ExportProgress {
+        /**
+         * @param written il numero di righe scritte finora.
+         * @param total   il numero totale di righe.
+         * @return {@code false} per interrompere l'esportazione.
+         */
+        boolean onProgress(long written, long total);
+    }
+
+    private final ListView<Integer> listView = new ListView<>();
+    private final CheckBox runLengthBox = new CheckBox("Sequenze (valore ×ripetizioni)");
+    private final Button exportButton = new Button("Esporta...");
+    private final Label infoLabel = new Label();
+    private final NumberFormat numberFormat = NumberFormat.getIntegerInstance(Locale.ITALY);
+    // Valori visualizzati (non copiati), numero di valori distinti e, calcolati soltanto quando la modalità a sequenze
+    // li richiede, gli indici di inizio delle sequenze.
+    private int[] values = new int[0];
+    private int distinct;
+    private int[] runStarts;
+    // Destinatario delle richieste di esportazione, che le esegue in background.
+    private Consumer<Path> exportHandler;
+
+    /**
+     * Crea una vista vuota.
+     */
+    public SortedOutputView() {
+        super(5);
+        listView.setFixedCellSize(CELL_HEIGHT);
+        listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        listView.setCellFactory(view -> new ListCell<Integer>() {
+            @Override
+            protected void updateItem(Integer row, boolean empty) {
+                super.updateItem(row, empty);
+                setText(empty || row == null ? null : rowText(row));   // Testo prodotto soltanto per le celle visibili.
+            }
+        });
+        listView.setOnKeyPressed(e -> {
+            if (e.isShortcutDown() && e.getCode() == KeyCode.C) {
+                copySelection();
+            }
+        });
+        MenuItem copyItem = new MenuItem("Copia");
+        copyItem.setOnAction(e -> copySelection());
+        listView.setContextMenu(new ContextMenu(copyItem));
+        VBox.setVgrow(listView, Priority.ALWAYS);
+
+        runLengthBox.selectedProperty().addListener((obs, oldValue, newValue) -> refresh());
+        Button copyButton = new Button("Copia");
+        copyButton.setOnAction(e -> copySelection());
+        exportButton.setOnAction(e -> chooseExportFile());
+        exportButton.setDisable(true);
+        getChildren().addAll(listView, new HBox(10, runLengthBox, copyButton, exportButton), infoLabel);
+    }
+
+    /**
+     * Visualizza un nuovo risultato. L'array non viene copiato e non deve essere modificato finché resta visualizzato.
+     *
+     * @param sorted i valori ordinati.
+     */
+    public void setValues(int[] sorted) {
+        values = sorted;
+        distinct = countRuns(sorted);      // Per l'etichetta basta un conteggio, senza allocare gli indici.
+        runStarts = null;
+        exportButton.setDisable(exportHandler == null || sorted.length == 0);
+        refresh();
+    }
+
+    /**
+     * @return i valori visualizzati.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * @return {@code true} se la vista mostra una riga per sequenza di valori uguali.
+     */
+    public boolean isRunLength() {
+        return runLengthBox.isSelected();
+    }
+
+    /**
+     * Imposta il destinatario delle richieste di esportazione: riceve il file scelto dall'utente ed è responsabile di
+     * scriverlo (tipicamente in background, con {@link #export(int[], boolean, Writer, ExportProgress)}).
+     *
+     * @param handler il destinatario, oppure {@code null} per disabilitare l'esportazione.
+     */
+    public void setExportHandler(Consumer<Path> handler) {
+        exportHandler = handler;
+        exportButton.setDisable(handler == null || values.length == 0);
+    }
+
+    /**
+     * Ricostruisce la lista virtuale delle righe per la modalità corrente.
+     */
+    private void refresh() {
+        int rows = isRunLength() ? runStarts().length : values.length;
+        listView.getSelectionModel().clearSelection();
+        listView.setItems(FXCollections.observableList(new RowIndices(rows)));
+        listView.scrollTo(0);
+        if (values.length == 0) {
+            infoLabel.setText("");
+        } else {
+            infoLabel.setText(numberFormat.format(values.length) + " valori, "
+                    + numberFormat.format(distinct) + " distinti");
+        }
+    }
+
+    /**
+     * @return gli indici di inizio delle sequenze di valori uguali, calcolati alla prima richiesta.
+     */
+    private int[] runStarts() {
+        if (runStarts == null) {
+            runStarts = runStarts(values);
+        }
+        return runStarts;
+    }
+
+    private static int[] runStarts(int[] sorted) {
+        int[] starts = new int[countRuns(sorted)];
+        for (int i = 0, r = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) starts[r++] = i;
+        }
+        return starts;
+    }
+
+    /**
+     * @return il numero di sequenze di valori uguali, ossia di valori distinti, dell'array ordinato.
+     */
+    private static int countRuns(int[] sorted) {
+        int runs = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) runs++;
+        }
+        return runs;
+    }
+
+    /**
+     * @return il testo della riga indicata nella modalità corrente.
+     */
+    private String rowText(int row) {
+        if (!isRunLength()) {
+            return Integer.toString(values[row]);
+        }
+        int[] starts = runStarts();
+        int end = row + 1 < starts.length ? starts[row + 1] : values.length;
+        return values[starts[row]] + " ×" + numberFormat.format(end - starts[row]);
+    }
+
+    /**
+     * Copia negli appunti le righe selezionate, una per riga di testo, nell'ordine della lista.
+     */
+    private void copySelection() {
+        List<Integer> selected = listView.getSelectionModel().getSelectedIndices();
+        if (selected.isEmpty()) return;
+        if (selected.size() > COPY_LIMIT) {
+            infoLabel.setText("Selezione troppo ampia da copiare (" + numberFormat.format(selected.size())
+                    + " righe): usare Esporta");
+            return;
+        }
+        int[] rows = new int[selected.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = selected.get(i);
+        }
+        Arrays.sort(rows);     // Le righe selezionate in ordine sparso vengono copiate dall'alto in basso.
+        StringBuilder text = new StringBuilder(rows.length * 8);
+        for (int row : rows) {
+            text.append(rowText(row)).append('\n');
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(text.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+        infoLabel.setText("Copiate " + numberFormat.format(rows.length) + " righe");
+    }
+
+    private void chooseExportFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Esporta i valori ordinati");
+        chooser.setInitialFileName(isRunLength() ? "sequenze.txt" : "ordinati.txt");
+        File file = chooser.showSaveDialog(getScene() == null ? null : getScene().getWindow());
+        if (file != null && exportHandler != null) {
+            exportHandler.accept(file.toPath());
+        }
+    }
+
+    /**
+     * Scrive i valori ordinati su file, una riga per valore oppure per sequenza di valori uguali.
+     *
+     * @param sorted    i valori ordinati.
+     * @param runLength {@code true} per scrivere le sequenze nella forma "valore ×ripetizioni".
+     * @param file      il file da creare o sovrascrivere, in UTF-8.
+     * @param progress  l'osservatore dell'avanzamento, oppure {@code null}.
+     * @return {@code false} se l'osservatore ha interrotto l'esportazione.
+     * @throws IOException se la scrittura non riesce.
+     */
+    public static boolean export(int[] sorted, boolean runLength, Path file, ExportProgress progress)
+            throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return export(sorted, runLength, writer, progress);
+        }
+    }
+
+    /**
+     * Scrive i valori ordinati su un {@link Writer}, una riga per valore oppure per sequenza di valori uguali. Il testo
+     * viene composto una riga alla volta in un buffer riutilizzato, per cui la memoria non dipende dal numero di valori.
+     *
+     * @param sorted    i valori ordinati.
+     * @param runLength {@code true} per scrivere le sequenze nella forma "valore ×ripetizioni".
+     * @param writer    la destinazione, che non viene chiusa.
+     * @param progress  l'osservatore dell'avanzamento, oppure {@code null}.
+     * @return {@code false} se l'osservatore ha interrotto l'esportazione.
+     * @throws IOException se la scrittura non riesce.
+     */
+    public static boolean export(int[] sorted, boolean runLength, Writer writer, ExportProgress progress)
+            throws IOException {
+        StringBuilder line = new StringBuilder(32);
+        NumberFormat format = NumberFormat.getIntegerInstance(Locale.ITALY);
+        int n = sorted.length;
+        for (int i = 0; i < n; ) {
+            int end = i + 1;
+            if (runLength) {
+                while (end < n && sorted[end] == sorted[i]) end++;
+                line.setLength(0);
+                line.append(sorted[i]).append(" ×").append(format.format(end - i)).append('\n');
+            } else {
+                line.setLength(0);
+                line.append(sorted[i]).append('\n');
+            }
+            writer.append(line);
+            // L'avanzamento è misurato in valori, anche nella modalità a sequenze.
+            if (progress != null && end / EXPORT_PROGRESS_STEP != i / EXPORT_PROGRESS_STEP
+                    && !progress.onProgress(end, n)) {
+                return false;
+            }
+            i = end;
+        }
+        writer.flush();
+        if (progress != null) progress.onProgress(n, n);
+        return true;
+    }
+
+    /**
+     * Lista virtuale degli indici {@code 0 .. size - 1}: ogni elemento viene creato soltanto quando la ListView lo
+     * richiede per una cella visibile.
+     */
+    private static final class RowIndices extends AbstractList<Integer> {
+        private final int size;
+
+        RowIndices(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Riga " + index + " fuori dall'intervallo [0, " + size + ")");
+            }
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
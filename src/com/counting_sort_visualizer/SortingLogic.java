@@ -1,7 +1,12 @@
 package com.counting_sort_visualizer;
 
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
 
 /**
  * Questa classe contiene la logica fondamentale per la generazione di numeri casuali e l'ordinamento tramite il Counting Sort.
@@ -18,51 +23,425 @@ public class SortingLogic {
      *                 tutti i valori generati saranno compresi tra 0 e maxValue (incluso).
      * @return restituisce un array di interi popolato da valori casuali.
      *
-     * L'implementazione utilizza la classe {@code Random} per garantire l'imprevedibilità dei valori e il metodo 
-     * {@code nextInt(maxValue+1)} poiché il limite superiore non è inclusivo, pertanto si aggiunge 1 al parametro.
+     * L'implementazione utilizza un {@link DataGenerator} con distribuzione uniforme e un seme sempre diverso, così che
+     * ogni chiamata produca valori imprevedibili; per dati riproducibili si usa
+     * {@link #generateRandomNumbers(int, int, long)}.
      */
     public static int[] generateRandomNumbers(int count, int maxValue) {
-        int[] arr = new int[count];               // Inizializzazione dell'array con la dimensione specificata.
-        Random random = new Random();             // Creazione di un oggetto Random per generare numeri casuali.
-        for (int i = 0; i < count; i++) {           // Ciclo iterativo per popolare ogni indice dell'array.
-            arr[i] = random.nextInt(maxValue + 1);  // Ogni cella dell'array viene assegnata un valore casuale nell'intervallo [0, maxValue].
-        }
-        return arr;   // L'array, completo di valori casuali, viene restituito al chiamante.
+        return generateRandomNumbers(count, maxValue, ThreadLocalRandom.current().nextLong());
     }
 
+    /**
+     * Genera un array di numeri casuali uniformi, riproducibile a partire dal seme.
+     *
+     * @param count    il numero di elementi da generare.
+     * @param maxValue il valore massimo generabile (incluso).
+     * @param seed     il seme: a parità di parametri, lo stesso seme produce sempre lo stesso array.
+     * @return l'array di valori casuali in {@code [0, maxValue]}.
+     */
+    public static int[] generateRandomNumbers(int count, int maxValue, long seed) {
+        return new DataGenerator(seed, DataGenerator.Distribution.UNIFORM, maxValue).generate(count);
+    }
+
+    /**
+     * Fattore moltiplicativo che lega l'ampiezza massima dell'intervallo dei valori alla lunghezza dell'input:
+     * finché {@code max - min + 1} non supera {@code COUNTING_SPAN_FACTOR * n + MIN_COUNTING_SPAN}, l'array di conteggio
+     * resta proporzionato ai dati e il Counting Sort è la scelta più conveniente.
+     */
+    static final int COUNTING_SPAN_FACTOR = 4;
+    // Ampiezza minima sempre gestita con il Counting Sort, così che i piccoli array con valori vicini non ricorrano al radix.
+    static final int MIN_COUNTING_SPAN = 1024;
+
     /**
      * Ordina l'array passato come parametro utilizzando il Counting Sort.
      *
      * Il Counting Sort è un algoritmo di ordinamento particolarmente efficiente quando la gamma dei valori degli elementi
      * è ristretta e conosciuta a priori. Non si basa sui confronti tra elementi ma sull'accumulo dei conteggi degli stessi.
      *
-     * @param arr l'array di interi da ordinare.
+     * @param arr l'array di interi da ordinare; sono ammessi anche valori negativi.
      * @return restituisce un nuovo array contenente gli stessi elementi dell'array in input, ma in ordine crescente.
      *
      * La procedura si articola nei seguenti passaggi:
-     * 1. Determinazione del valore massimo dell'array per definire la dimensione dell'array di conteggio.
-     * 2. Conteggio delle occorrenze di ciascun valore.
+     * 1. Determinazione, in un'unica scansione, del valore minimo e del valore massimo dell'array.
+     * 2. Conteggio delle occorrenze di ciascun valore in un array di dimensione {@code max - min + 1}, traslando ogni
+     *    valore di {@code min}: in questo modo valori negativi o intervalli "spostati" (timestamp, differenze con segno)
+     *    non richiedono un array di conteggio grande quanto il massimo.
      * 3. Ricostruzione dell'array ordinato a partire dalle occorrenze contate.
+     *
+     * L'istogramma non è necessariamente un {@code int[]}: {@link HistogramBackend#select(int[], int, int)} sceglie,
+     * con una pre-scansione a campione, contatori da 1 o 2 byte quando le ripetizioni per valore sono poche (così che
+     * l'istogramma resti nelle cache L1/L2), promossi a una larghezza maggiore se un contatore trabocca.
+     *
+     * Se l'ampiezza dell'intervallo è molto maggiore della lunghezza dell'array (per esempio un solo valore pari a
+     * 2.000.000.000), l'array di conteggio diventerebbe sproporzionato: in tal caso i valori vengono contati in una
+     * mappa sparsa se il campione mostra pochi valori distinti, altrimenti si ricorre al Radix Sort LSD di
+     * {@link RadixSort}, che riutilizza il conteggio su cifre di 8 bit e richiede memoria proporzionale soltanto a
+     * {@code n}.
      */
     public static int[] countingSort(int[] arr) {
         if (arr.length == 0) return arr;    // Verifica del caso limite: se l'array è vuoto, lo restituisce immediatamente.
-        int max = Arrays.stream(arr).max().getAsInt();  // Calcola il valore massimo presente nell'array usando lo stream di Java.
-        int[] count = new int[max + 1];       // Inizializzazione dell'array di conteggio con dimensione pari al massimo valore + 1.
+        // Istanti di confine tra le fasi e byte allocati, registrati in SortMetrics al termine.
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        // Calcola minimo e massimo con un'unica scansione dell'array, senza ricorrere agli stream.
+        long minMax = ScanKernels.minMax(arr, 0, arr.length);
+        int min = ScanKernels.min(minMax);
+        int max = ScanKernels.max(minMax);
+        long span = (long) max - min + 1;
+        // Rappresentazione dell'istogramma scelta in base alla forma dei dati (contatori stretti, int o mappa sparsa);
+        // null se l'intervallo è troppo ampio rispetto ai dati e i valori distinti sono troppi per la mappa.
+        HistogramBackend histogram = HistogramBackend.select(arr, min, max);
+        long scanEnd = System.nanoTime();
+        if (histogram == null) {
+            return radixSort(arr, span, start, scanEnd, allocBefore);     // Si evita di allocare O(max) contatori.
+        }
 
-        // Ciclo che itera su ogni elemento dell'array, incrementando la posizione corrispondente nell'array "count".
-        for (int num : arr) {
-            count[num]++;                   // Incrementa il conteggio per il valore 'num'.
+        // Conteggio delle occorrenze; se un contatore stretto trabocca, l'istogramma viene promosso a una
+        // rappresentazione più ampia e il conteggio riprende dall'elemento in cui si era fermato.
+        int counted = 0;
+        while ((counted = histogram.count(arr, counted, arr.length)) < arr.length) {
+            histogram = histogram.promote();
+            if (histogram == null) {
+                // La mappa sparsa ha incontrato troppi valori distinti.
+                return radixSort(arr, span, start, scanEnd, allocBefore);
+            }
         }
+        long countEnd = System.nanoTime();
 
-        // Costruzione del nuovo array ordinato: si scorre l'array "count" e per ogni valore, si inseriscono tante copie nel nuovo array.
+        // Costruzione del nuovo array ordinato: per ogni valore presente si scrive in blocco l'intera sequenza di copie.
         int[] sorted = new int[arr.length];   // Nuovo array che conterrà gli elementi ordinati.
-        int index = 0;                        // Variabile che tiene traccia della posizione corrente nel nuovo array.
-        for (int i = 0; i < count.length; i++) {  // Ciclo sull'array di conteggio, da 0 fino al valore massimo.
-            while (count[i] > 0) {                // Finché ci sono occorrenze del valore i,
-                sorted[index++] = i;              // si inserisce il valore i nell'array ordinato e si incrementa l'indice.
-                count[i]--;                     // Si decrementa il conteggio per il valore i, poiché ne è stata consumata un'istanza.
+        histogram.fill(sorted, 0);
+        SortMetrics.global().recordSort(histogram.strategy(), arr.length, span, start, scanEnd, countEnd,
+                System.nanoTime(), allocBefore);
+        return sorted;  // Restituisce l'array ordinato.
+    }
+
+    /**
+     * Ripiego di {@link #countingSort(int[])} sul Radix Sort; nelle metriche l'intero radix sort figura come fase di
+     * conteggio.
+     */
+    private static int[] radixSort(int[] arr, long span, long start, long scanEnd, long allocBefore) {
+        int[] sorted = RadixSort.sort(arr);
+        long end = System.nanoTime();
+        SortMetrics.global().recordSort(SortMetrics.Strategy.RADIX, arr.length, span, start, scanEnd, end, end,
+                allocBefore);
+        return sorted;
+    }
+
+    /**
+     * Ricostruisce la sequenza ordinata a partire da un istogramma, scrivendo ogni gruppo di valori uguali con un'unica
+     * operazione di riempimento.
+     *
+     * Rispetto al ciclo "un elemento alla volta" (scrittura, decremento del contatore e salto condizionato per ogni
+     * elemento) il costo per elemento si riduce a una scrittura sequenziale, e i contatori nulli vengono saltati subito:
+     * sui dati con molte ripetizioni (poche chiavi distinte su milioni di elementi) è la fase che beneficia di più.
+     * L'istogramma non viene modificato.
+     *
+     * @param count    l'istogramma: {@code count[i]} è il numero di occorrenze del valore {@code i + base}.
+     * @param width    il numero di contatori da considerare.
+     * @param base     il valore corrispondente al contatore di indice 0.
+     * @param dest     l'array di destinazione.
+     * @param destFrom la posizione da cui iniziare la scrittura.
+     * @return la posizione successiva all'ultimo elemento scritto.
+     */
+    static int fillRuns(int[] count, int width, int base, int[] dest, int destFrom) {
+        int index = destFrom;
+        for (int i = 0; i < width; i++) {
+            int c = count[i];
+            if (c != 0) {
+                Arrays.fill(dest, index, index + c, i + base);  // Scrittura in blocco della sequenza di copie del valore.
+                index += c;
             }
         }
-        return sorted;  // Restituisce l'array ordinato.
+        return index;
+    }
+
+    /**
+     * Ordina un array di byte con un istogramma fisso di 256 contatori.
+     *
+     * L'intervallo delle chiavi è noto a priori, per cui non serve la scansione di minimo e massimo: l'istogramma
+     * (1 KiB) resta nella cache L1 qualunque sia l'input, e i valori non vengono mai copiati in un {@code int[]}.
+     *
+     * @param arr l'array da ordinare (non viene modificato).
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static byte[] countingSort(byte[] arr) {
+        if (arr.length == 0) return arr;
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        int[] count = new int[1 << Byte.SIZE];
+        for (byte v : arr) {
+            count[v - Byte.MIN_VALUE]++;     // Traslazione di 128: il valore -128 occupa il contatore 0.
+        }
+        long countEnd = System.nanoTime();
+        byte[] sorted = new byte[arr.length];
+        int index = 0;
+        for (int k = 0; k < count.length; k++) {
+            int c = count[k];
+            if (c != 0) {
+                Arrays.fill(sorted, index, index + c, (byte) (k + Byte.MIN_VALUE));
+                index += c;
+            }
+        }
+        SortMetrics.global().recordSort(SortMetrics.Strategy.DENSE_INT, arr.length, count.length, start, start,
+                countEnd, System.nanoTime(), allocBefore);
+        return sorted;
+    }
+
+    /**
+     * Ordina un array di caratteri (confrontati come valori UTF-16 senza segno) con un istogramma fisso di 65.536
+     * contatori, senza scansione di minimo e massimo.
+     *
+     * @param arr l'array da ordinare (non viene modificato).
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static char[] countingSort(char[] arr) {
+        if (arr.length == 0) return arr;
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        int[] count = new int[1 << Character.SIZE];
+        for (char v : arr) {
+            count[v]++;
+        }
+        long countEnd = System.nanoTime();
+        char[] sorted = new char[arr.length];
+        int index = 0;
+        for (int k = 0; k < count.length; k++) {
+            int c = count[k];
+            if (c != 0) {
+                Arrays.fill(sorted, index, index + c, (char) k);
+                index += c;
+            }
+        }
+        SortMetrics.global().recordSort(SortMetrics.Strategy.DENSE_INT, arr.length, count.length, start, start,
+                countEnd, System.nanoTime(), allocBefore);
+        return sorted;
+    }
+
+    /**
+     * Ordina un array di {@code short} con un istogramma fisso di 65.536 contatori, senza scansione di minimo e
+     * massimo.
+     *
+     * @param arr l'array da ordinare (non viene modificato).
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static short[] countingSort(short[] arr) {
+        if (arr.length == 0) return arr;
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        int[] count = new int[1 << Short.SIZE];
+        for (short v : arr) {
+            count[v - Short.MIN_VALUE]++;    // Traslazione di 32.768: il valore minimo occupa il contatore 0.
+        }
+        long countEnd = System.nanoTime();
+        short[] sorted = new short[arr.length];
+        int index = 0;
+        for (int k = 0; k < count.length; k++) {
+            int c = count[k];
+            if (c != 0) {
+                Arrays.fill(sorted, index, index + c, (short) (k + Short.MIN_VALUE));
+                index += c;
+            }
+        }
+        SortMetrics.global().recordSort(SortMetrics.Strategy.DENSE_INT, arr.length, count.length, start, start,
+                countEnd, System.nanoTime(), allocBefore);
+        return sorted;
+    }
+
+    /**
+     * Ordina un array di {@code long} con il Counting Sort, senza passare per un {@code int[]}.
+     *
+     * Come per {@link #countingSort(int[])}, i valori sono traslati del minimo: se l'ampiezza {@code max - min + 1} è
+     * proporzionata all'input (per esempio identificativi a 64 bit consecutivi o quasi) si contano in un istogramma
+     * denso, altrimenti si ricorre a {@link RadixSort#sort(long[])} con cifre di 11 bit.
+     *
+     * @param arr l'array da ordinare (non viene modificato).
+     * @return un nuovo array con gli elementi in ordine crescente.
+     */
+    public static long[] countingSort(long[] arr) {
+        if (arr.length == 0) return arr;
+        long allocBefore = SortMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        long min = arr[0];
+        long max = arr[0];
+        for (int i = 1; i < arr.length; i++) {
+            long v = arr[i];
+            if (v < min) min = v;
+            else if (v > max) max = v;
+        }
+        // Differenza senza segno: con chiavi a 64 bit max - min può superare Long.MAX_VALUE.
+        long distance = max - min;
+        long scanEnd = System.nanoTime();
+        if (Long.compareUnsigned(distance, denseSpanLimit(arr.length)) >= 0) {
+            long[] sorted = RadixSort.sort(arr);
+            long end = System.nanoTime();
+            SortMetrics.global().recordSort(SortMetrics.Strategy.RADIX, arr.length, distance < 0 ? Long.MAX_VALUE
+                    : distance + 1, start, scanEnd, end, end, allocBefore);
+            return sorted;
+        }
+        int width = (int) distance + 1;
+        int[] count = new int[width];
+        for (long v : arr) {
+            count[(int) (v - min)]++;
+        }
+        long countEnd = System.nanoTime();
+        long[] sorted = new long[arr.length];
+        int index = 0;
+        for (int k = 0; k < width; k++) {
+            int c = count[k];
+            if (c != 0) {
+                Arrays.fill(sorted, index, index + c, min + k);
+                index += c;
+            }
+        }
+        SortMetrics.global().recordSort(SortMetrics.Strategy.DENSE_INT, arr.length, width, start, scanEnd, countEnd,
+                System.nanoTime(), allocBefore);
+        return sorted;
+    }
+
+    /**
+     * Ordina in modo stabile un array di oggetti in base a una chiave intera, senza comparatore.
+     *
+     * La chiave di ciascun elemento viene estratta una sola volta in un {@code int[]}; gli oggetti vengono poi collocati
+     * con un Counting Sort stabile (somme prefisse e collocazione in avanti) se l'intervallo delle chiavi è proporzionato
+     * all'input, altrimenti con il radix sort stabile su chiavi e indici di {@link CountingSorter#sortByKey(int[], int[])}.
+     * A parità di chiave, gli elementi mantengono l'ordine relativo originale.
+     *
+     * @param items gli elementi da ordinare (l'array non viene modificato).
+     * @param key   la funzione che estrae la chiave di ordinamento; viene invocata una volta per elemento.
+     * @param <T>   il tipo degli elementi.
+     * @return un nuovo array con gli stessi elementi in ordine crescente di chiave.
+     */
+    public static <T> T[] sortBy(T[] items, ToIntFunction<? super T> key) {
+        int n = items.length;
+        T[] sorted = items.clone();
+        if (n < 2) return sorted;
+        int[] keys = new int[n];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int k = key.applyAsInt(items[i]);
+            keys[i] = k;
+            if (k < min) min = k;
+            if (k > max) max = k;
+        }
+        long span = (long) max - min + 1;
+        if (span > denseSpanLimit(n)) {
+            // Intervallo troppo ampio: si ordinano le chiavi insieme agli indici, poi si raccolgono gli oggetti.
+            int[] indices = new int[n];
+            for (int i = 0; i < n; i++) {
+                indices[i] = i;
+            }
+            new CountingSorter().sortByKey(keys, indices);
+            for (int i = 0; i < n; i++) {
+                sorted[i] = items[indices[i]];
+            }
+            return sorted;
+        }
+        int[] count = new int[(int) span];
+        for (int k : keys) {
+            count[k - min]++;
+        }
+        // Somme prefisse: count[k] diventa la prima posizione di uscita della chiave k + min.
+        int sum = 0;
+        for (int k = 0; k < count.length; k++) {
+            int c = count[k];
+            count[k] = sum;
+            sum += c;
+        }
+        // Collocazione in avanti, nell'ordine originale: garantisce la stabilità.
+        for (int i = 0; i < n; i++) {
+            sorted[count[keys[i] - min]++] = items[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Ampiezza massima dell'istogramma denso per un input di {@code n} elementi, limitata alla dimensione massima di un
+     * array Java: è il criterio con cui anche {@link HistogramBackend} sceglie i contatori densi.
+     */
+    static long denseSpanLimit(int n) {
+        return Math.min((long) COUNTING_SPAN_FACTOR * n + MIN_COUNTING_SPAN, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Ordina l'array con la variante parallela del Counting Sort, eseguita sul {@link ForkJoinPool#commonPool()}.
+     *
+     * L'input viene diviso in blocchi: ciascun thread costruisce un istogramma privato del proprio blocco, gli istogrammi
+     * vengono fusi con una somma prefissa e ogni blocco colloca i propri elementi in intervalli di uscita disgiunti.
+     * Sotto {@link ParallelCountingSort#SEQUENTIAL_THRESHOLD} elementi, oppure quando l'intervallo dei valori è troppo
+     * ampio per istogrammi privati, viene scelto automaticamente il percorso sequenziale di {@link #countingSort(int[])}.
+     *
+     * @param arr l'array di interi da ordinare.
+     * @return un nuovo array contenente gli elementi ordinati in modo crescente.
+     */
+    public static int[] parallelCountingSort(int[] arr) {
+        return parallelCountingSort(arr, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Variante di {@link #parallelCountingSort(int[])} che utilizza il pool indicato dal chiamante.
+     *
+     * @param arr  l'array di interi da ordinare.
+     * @param pool il pool fork-join su cui eseguire i task; il suo grado di parallelismo determina il numero di blocchi.
+     * @return un nuovo array contenente gli elementi ordinati in modo crescente.
+     */
+    public static int[] parallelCountingSort(int[] arr, ForkJoinPool pool) {
+        if (arr.length == 0) return arr;
+        return ParallelCountingSort.sort(arr, pool);
+    }
+
+    /**
+     * Ordina l'array scegliendo automaticamente l'algoritmo in base a un profilo dell'input calcolato a campione.
+     *
+     * Il profilo stima l'ampiezza dell'intervallo dei valori, il numero di valori distinti e se l'input è già ordinato;
+     * un modello dei costi sceglie quindi tra la semplice copia di un input ordinato, il Counting Sort sequenziale o
+     * parallelo, il Radix Sort e {@link Arrays#sort(int[])}. Il chiamante non deve conoscere in anticipo la forma dei
+     * dati: per esempio un array piccolo su un intervallo ampio viene ordinato per confronti invece di allocare un
+     * istogramma sproporzionato. I dettagli sono descritti in {@link AdaptiveSort}.
+     *
+     * @param arr l'array di interi da ordinare (non viene modificato).
+     * @return un nuovo array contenente gli elementi ordinati in modo crescente.
+     */
+    public static int[] sort(int[] arr) {
+        return sort(arr, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Variante di {@link #sort(int[])} che, se sceglie il Counting Sort parallelo, lo esegue sul pool indicato.
+     *
+     * @param arr  l'array di interi da ordinare (non viene modificato).
+     * @param pool il pool fork-join per il Counting Sort parallelo; il suo grado di parallelismo entra nel modello.
+     * @return un nuovo array contenente gli elementi ordinati in modo crescente.
+     */
+    public static int[] sort(int[] arr, ForkJoinPool pool) {
+        return AdaptiveSort.sort(arr, pool);
+    }
+
+    /**
+     * Rimisura sulla macchina corrente i coefficienti del modello dei costi usato da {@link #sort(int[])}, con brevi
+     * prove di ciascun algoritmo su input sintetici. L'operazione richiede qualche centinaio di millisecondi e va
+     * eseguita quando non sono in corso altri ordinamenti, tipicamente all'avvio: le prove misurano tempi e verrebbero
+     * falsate dalla concorrenza. Le prove non vengono registrate nelle {@link SortMetrics}.
+     *
+     * @return una descrizione dei coefficienti misurati.
+     */
+    public static String calibrateSort() {
+        return AdaptiveSort.calibrate().toString();
+    }
+
+    /**
+     * Ordina un file binario di interi a 32 bit big-endian con il Counting Sort partizionato di
+     * {@link DistributedCountingSort}, distribuito su processi di lavoro locali: ciascun processo conta una porzione
+     * del file, gli istogrammi parziali vengono sommati e ogni processo scrive un intervallo di valori dell'uscita.
+     *
+     * @param input   il file di ingresso.
+     * @param output  il file di uscita, creato o sovrascritto.
+     * @param workers il numero di processi di lavoro.
+     * @return il numero di valori ordinati.
+     * @throws IOException se la lettura, la scrittura o la comunicazione con i processi non riesce.
+     */
+    public static long distributedCountingSort(Path input, Path output, int workers) throws IOException {
+        return DistributedCountingSort.sortFile(input, output, ByteOrder.BIG_ENDIAN, workers);
     }
 }
@@ -0,0 +1,315 @@
+package com.counting_sort_visualizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Istogramma per dati fuori dallo heap con un intervallo di valori qualsiasi, con un consumo di heap limitato da una
+ * costante. È usato dalle modalità che ordinano file più grandi dell'heap ({@link BatchSortCli} e {@link SortWorker}).
+ *
+ * I dati vengono letti in due passate:
+ * 1. {@link #add(int)} e {@link #addAll(ByteBuffer)} contano i valori in un {@link CountingHistogram} di al più
+ *    {@value #DIRECT_WIDTH} contatori finché l'intervallo vi rientra; in questo caso la seconda passata non serve.
+ *    Quando un blocco porterebbe l'intervallo oltre il limite, l'istogramma diretto viene convertito in un conteggio
+ *    per bucket, indicizzati dai {@value #BUCKET_BITS} bit alti del valore, che prosegue fino al termine della passata;
+ * 2. se {@link #needsSecondPass()}, dopo {@link #beginSecondPass()} ogni valore riletto con {@link #distribute(int)}
+ *    o {@link #distributeAll(ByteBuffer)} viene copiato nella regione del proprio bucket di un file temporaneo mappato
+ *    in memoria, grande quanto l'input.
+ *
+ * {@link #forEachRun(CountingHistogram.RunConsumer)} produce poi le sequenze in ordine crescente contando un bucket
+ * alla volta: i valori di un bucket condividono i bit alti, per cui bastano {@code 2^16} contatori per i bit bassi. I
+ * bucket con pochi valori vengono invece ordinati per confronto, per non scorrere 65536 contatori per pochi elementi.
+ *
+ * Nello heap restano al più l'istogramma diretto (8 MiB) oppure i contatori dei bucket, le loro regioni e i contatori
+ * di un bucket alla volta (2 MiB), qualunque siano il numero e l'ampiezza dei valori: il limite dell'istogramma
+ * diretto è fisso, e non cresce con il numero dei valori come quello predefinito di {@link CountingHistogram}. I dati
+ * occupano il file temporaneo, che il sistema operativo gestisce come la cache delle pagine e che viene eliminato da
+ * {@link #close()}.
+ */
+final class WideRangeHistogram implements Closeable {
+
+    /** Numero di bit alti che individuano il bucket di un valore. */
+    static final int BUCKET_BITS = 16;
+    /** Numero massimo di contatori del conteggio diretto (8 MiB), oltre il quale si passa ai bucket. */
+    static final int DIRECT_WIDTH = CountingHistogram.FREE_WIDTH;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int LOW_MASK = BUCKETS - 1;
+    // Sotto questa dimensione un bucket viene ordinato per confronto anziché contato sui bit bassi.
+    private static final int SMALL_BUCKET = 1 << 12;
+    // Numero di interi trasferiti per volta dai buffer e dal file temporaneo.
+    private static final int BLOCK = 4096;
+
+    // Cartella del file temporaneo (null per quella predefinita del sistema).
+    private final Path directory;
+    // Conteggio diretto, finché l'intervallo lo consente; null dopo il passaggio ai bucket.
+    private CountingHistogram direct = new CountingHistogram(DIRECT_WIDTH);
+    // Occorrenze per bucket, allocate al passaggio ai bucket.
+    private long[] buckets;
+    private int min;
+    private int max;
+    private long total;
+    // Valori ricevuti uno alla volta, contati a blocchi.
+    private final int[] block = new int[BLOCK];
+    private int pending;
+    // Seconda passata: regione di ciascun bucket nel file temporaneo e prossima posizione libera.
+    private long[] starts;
+    private long[] next;
+    private FileChannel channel;
+    private OffHeapIntArray spill;
+
+    /**
+     * Crea un istogramma vuoto.
+     *
+     * @param directory la cartella in cui creare l'eventuale file temporaneo, o {@code null} per quella predefinita:
+     *                  conviene indicare un disco con spazio pari all'input, come quello del file di uscita.
+     */
+    WideRangeHistogram(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Conta un valore durante la prima passata.
+     */
+    void add(int value) {
+        block[pending++] = value;
+        if (pending == BLOCK) flush();
+    }
+
+    /**
+     * Conta, durante la prima passata, gli interi a 32 bit tra posizione e limite del buffer, letti con l'ordine dei
+     * byte del buffer; la posizione avanza oltre gli interi letti.
+     */
+    void addAll(ByteBuffer buffer) {
+        flush();
+        IntBuffer ints = buffer.asIntBuffer();
+        int read = ints.remaining();
+        while (ints.hasRemaining()) {
+            int n = Math.min(BLOCK, ints.remaining());
+            ints.get(block, 0, n);
+            count(block, n);
+        }
+        buffer.position(buffer.position() + read * 4);
+    }
+
+    /**
+     * @return {@code true} se l'intervallo dei valori ha superato il conteggio diretto e i dati vanno riletti con
+     *         {@link #distribute(int)} prima di produrre le sequenze.
+     */
+    boolean needsSecondPass() {
+        flush();
+        return buckets != null;
+    }
+
+    /**
+     * Crea il file temporaneo della seconda passata, dimensionato sui valori contati nella prima.
+     *
+     * @throws IOException se il file non può essere creato o mappato.
+     */
+    void beginSecondPass() throws IOException {
+        if (!needsSecondPass()) {
+            throw new IllegalStateException("La seconda passata non è necessaria");
+        }
+        if (spill != null) {
+            throw new IllegalStateException("Seconda passata già iniziata");
+        }
+        Path file = directory == null ? Files.createTempFile("counting-sort-", ".tmp")
+                : Files.createTempFile(directory, "counting-sort-", ".tmp");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        spill = OffHeapIntArray.map(channel, FileChannel.MapMode.READ_WRITE, 0, total, ByteOrder.nativeOrder());
+        starts = new long[BUCKETS + 1];
+        for (int b = 0; b < BUCKETS; b++) {
+            starts[b + 1] = starts[b] + buckets[b];
+        }
+        next = Arrays.copyOf(starts, BUCKETS);
+    }
+
+    /**
+     * Copia un valore, riletto nella seconda passata, nella regione del proprio bucket.
+     */
+    void distribute(int value) {
+        spill.set(next[bucket(value)]++, value);
+    }
+
+    /**
+     * Variante di {@link #distribute(int)} per gli interi tra posizione e limite del buffer, letti con l'ordine dei
+     * byte del buffer; la posizione avanza oltre gli interi letti.
+     */
+    void distributeAll(ByteBuffer buffer) {
+        IntBuffer ints = buffer.asIntBuffer();
+        int read = ints.remaining();
+        while (ints.hasRemaining()) {
+            int n = Math.min(BLOCK, ints.remaining());
+            ints.get(block, 0, n);
+            for (int i = 0; i < n; i++) {
+                distribute(block[i]);
+            }
+        }
+        buffer.position(buffer.position() + read * 4);
+    }
+
+    /**
+     * @return il numero totale di valori contati nella prima passata.
+     */
+    long total() {
+        flush();
+        return buckets == null ? direct.total() : total;
+    }
+
+    /**
+     * @return il valore minimo contato.
+     * @throws NoSuchElementException se l'istogramma è vuoto.
+     */
+    int min() {
+        flush();
+        if (buckets == null) return direct.min();
+        if (total == 0) throw new NoSuchElementException("Istogramma vuoto");
+        return min;
+    }
+
+    /**
+     * @return il valore massimo contato.
+     * @throws NoSuchElementException se l'istogramma è vuoto.
+     */
+    int max() {
+        flush();
+        if (buckets == null) return direct.max();
+        if (total == 0) throw new NoSuchElementException("Istogramma vuoto");
+        return max;
+    }
+
+    /**
+     * Visita i valori contati in ordine crescente, ciascuno con il proprio numero di occorrenze.
+     *
+     * @throws IllegalStateException se la seconda passata è necessaria ma non è stata completata, o se ha riletto
+     *                               valori diversi da quelli della prima.
+     */
+    void forEachRun(CountingHistogram.RunConsumer consumer) {
+        flush();
+        if (buckets == null) {
+            direct.forEachRun(consumer);
+            return;
+        }
+        if (spill == null) {
+            throw new IllegalStateException("Seconda passata non eseguita");
+        }
+        for (int b = 0; b < BUCKETS; b++) {
+            if (next[b] != starts[b + 1]) {
+                throw new IllegalStateException("La seconda passata ha letto valori diversi dalla prima");
+            }
+        }
+        long[] low = null;
+        for (int b = 0; b < BUCKETS; b++) {
+            long from = starts[b];
+            long size = starts[b + 1] - from;
+            if (size == 0) continue;
+            // I bit alti del valore, con il bit di segno ripristinato: i bit bassi si aggiungono con un OR.
+            int high = b << BUCKET_BITS ^ Integer.MIN_VALUE;
+            if (size < SMALL_BUCKET) {
+                int n = (int) size;
+                spill.get(from, block, 0, n);
+                Arrays.sort(block, 0, n);
+                int runStart = 0;
+                for (int i = 1; i <= n; i++) {
+                    if (i == n || block[i] != block[runStart]) {
+                        consumer.accept(block[runStart], i - runStart);
+                        runStart = i;
+                    }
+                }
+                continue;
+            }
+            if (low == null) low = new long[BUCKETS];
+            for (long i = from, end = from + size; i < end; i += BLOCK) {
+                int n = (int) Math.min(BLOCK, end - i);
+                spill.get(i, block, 0, n);
+                for (int j = 0; j < n; j++) {
+                    low[block[j] & LOW_MASK]++;
+                }
+            }
+            for (int k = 0; k < BUCKETS; k++) {
+                if (low[k] != 0) {
+                    consumer.accept(high | k, low[k]);
+                    low[k] = 0;          // Contatori pronti per il bucket successivo.
+                }
+            }
+        }
+    }
+
+    /**
+     * Chiude ed elimina l'eventuale file temporaneo.
+     */
+    @Override
+    public void close() throws IOException {
+        spill = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Bucket di un valore: i bit alti con il bit di segno invertito, così che l'ordine dei bucket sia quello dei valori.
+     */
+    private static int bucket(int value) {
+        return (value ^ Integer.MIN_VALUE) >>> (32 - BUCKET_BITS);
+    }
+
+    private void flush() {
+        if (pending == 0) return;
+        int n = pending;
+        pending = 0;
+        count(block, n);
+    }
+
+    /**
+     * Conta i primi {@code n} valori di {@code values}, passando ai bucket se il conteggio diretto non li accetta.
+     */
+    private void count(int[] values, int n) {
+        long minMax = ScanKernels.minMax(values, 0, n);
+        int lo = ScanKernels.min(minMax);
+        int hi = ScanKernels.max(minMax);
+        if (buckets == null) {
+            if (direct.canAdd(lo, hi, n)) {
+                direct.addAll(values, 0, n);
+                return;
+            }
+            toBuckets();
+        }
+        long[] c = buckets;
+        for (int i = 0; i < n; i++) {
+            c[bucket(values[i])]++;
+        }
+        if (total == 0) {
+            min = lo;
+            max = hi;
+        } else {
+            min = Math.min(min, lo);
+            max = Math.max(max, hi);
+        }
+        total += n;
+    }
+
+    /**
+     * Converte il conteggio diretto in conteggio per bucket, liberando l'istogramma diretto.
+     */
+    private void toBuckets() {
+        long[] c = new long[BUCKETS];
+        if (!direct.isEmpty()) {
+            min = direct.min();
+            max = direct.max();
+            total = direct.total();
+            direct.forEachRun((value, count) -> c[bucket(value)] += count);
+        }
+        buckets = c;
+        direct = null;
+    }
+}
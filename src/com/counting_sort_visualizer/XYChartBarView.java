@@ -0,0 +1,52 @@
+package com.counting_sort_visualizer;
+
+import javafx.scene.Node;
+import javafx.scene.chart.XYChart;
+import javafx.scene.effect.Glow;
+
+/**
+ * Adattatore che espone la serie di un {@code BarChart} come {@link BarAnimationEngine.BarView}.
+ *
+ * L'evidenziazione di una barra viene resa con un ingrandimento proporzionale e con il livello del {@link Glow} già
+ * assegnato al nodo da {@code displayData}: nessun effetto viene creato durante l'animazione.
+ */
+final class XYChartBarView implements BarAnimationEngine.BarView {
+
+    // Ingrandimento massimo applicato a una barra evidenziata.
+    private static final double MAX_SCALE_INCREASE = 0.3;
+    // Livello massimo del glow di una barra evidenziata.
+    private static final double MAX_GLOW = 1.0;
+
+    private final XYChart.Series<String, Number> series;
+
+    XYChartBarView(XYChart.Series<String, Number> series) {
+        this.series = series;
+    }
+
+    @Override
+    public int barCount() {
+        return series.getData().size();
+    }
+
+    @Override
+    public void setBarValue(int index, int value) {
+        series.getData().get(index).setYValue(value);
+    }
+
+    @Override
+    public void setBarHighlight(int index, double level) {
+        Node node = series.getData().get(index).getNode();
+        if (node == null) return;
+        double scale = 1.0 + MAX_SCALE_INCREASE * level;
+        node.setScaleX(scale);
+        node.setScaleY(scale);
+        if (node.getEffect() instanceof Glow) {
+            ((Glow) node.getEffect()).setLevel(MAX_GLOW * level);
+        }
+    }
+
+    @Override
+    public void commitFrame() {
+        // Il BarChart aggiorna il proprio layout al termine dell'impulso: non serve alcuna conferma esplicita.
+    }
+}